@@ -0,0 +1,135 @@
+package com.university.bench;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The packaged application running in a JVM of its own, so that benchmarks measure it as deployed and
+ * their own threads, allocations and GC pauses do not count against it.
+ * Variants:
+ *   default - the executable jar as built by mvn package
+ *   fast    - the extracted jar with the AOT initializers and CDS archive from mvn -Pfast-startup package
+ */
+class ApplicationProcess implements AutoCloseable {
+    private static final String JAR_NAME = "university-0.0.1-SNAPSHOT.jar";
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(5);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+    private final Process process;
+    private final Path log;
+
+    private ApplicationProcess(Process process, Path log) {
+        this.process = process;
+        this.log = log;
+    }
+
+    /**
+     * @return The jar of the variant, which may not have been built
+     */
+    static Path jar(String variant) {
+        Path targetDir = Path.of("target").toAbsolutePath();
+        return switch (variant) {
+            case "default" -> targetDir.resolve(JAR_NAME);
+            case "fast" -> targetDir.resolve("fast-startup").resolve(JAR_NAME);
+            default -> throw new IllegalArgumentException("Unknown variant " + variant + ", expected default or fast");
+        };
+    }
+
+    /**
+     * Launches the application without waiting for it to start
+     * @param variant default or fast
+     * @param jvmOptions Options of the application's JVM
+     * @param arguments Application arguments, e.g. --server.port=18080
+     * @param log File receiving the application's output
+     * @throws IllegalStateException if the variant has not been built
+     */
+    static ApplicationProcess start(String variant, List<String> jvmOptions, List<String> arguments, Path log)
+            throws IOException {
+        Path jar = jar(variant);
+        if (!Files.exists(jar)) {
+            throw new IllegalStateException(jar + " not found, build it with mvn package"
+                    + (variant.equals("fast") ? " -Pfast-startup" : ""));
+        }
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (variant.equals("fast")) {
+            command.add("-XX:SharedArchiveFile=application.jsa");
+            command.add("-Dspring.aot.enabled=true");
+        }
+        command.addAll(jvmOptions);
+        command.add("-jar");
+        command.add(JAR_NAME);
+        command.addAll(arguments);
+
+        Process process = new ProcessBuilder(command)
+                .directory(jar.getParent().toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        return new ApplicationProcess(process, log);
+    }
+
+    /**
+     * Polls the URL until it answers 200
+     * @throws IllegalStateException if the application exits or does not answer in time
+     */
+    void awaitAnswering(URI uri, Duration timeout) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < timeout.toNanos()) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited during startup, see " + log
+                        + System.lineSeparator() + Files.readString(log));
+            }
+            if (answers(request)) {
+                return;
+            }
+            Thread.sleep(POLL_INTERVAL);
+        }
+        throw new IllegalStateException("Application did not answer within " + timeout + ", see " + log);
+    }
+
+    /**
+     * Waits for an application started to exit on its own, e.g. with -Dspring.context.exit=onRefresh
+     * @throws IllegalStateException if it fails or does not exit in time
+     */
+    void awaitExit(Duration timeout) throws IOException, InterruptedException {
+        if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("Application did not exit within " + timeout + ", see " + log);
+        }
+        if (process.exitValue() != 0) {
+            throw new IllegalStateException("Application exited with " + process.exitValue() + ", see " + log
+                    + System.lineSeparator() + Files.readString(log));
+        }
+    }
+
+    private boolean answers(HttpRequest request) throws InterruptedException {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            // Not listening yet
+            return false;
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(10, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+        client.close();
+    }
+}
@@ -0,0 +1,90 @@
+package com.university.bench;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Command-line options of the load-test harness, e.g.
+ * --students 100000 --model open --rate 500 --mix get=70,search=20,create=5,update=5
+ */
+public class HarnessOptions {
+
+    public enum LoadModel {
+        /** Fixed number of workers, each sending its next request when the previous one completes */
+        CLOSED,
+        /** Requests sent at a fixed arrival rate regardless of how fast the server answers */
+        OPEN
+    }
+
+    int students = 10_000;
+    Duration warmup = Duration.ofSeconds(10);
+    Duration duration = Duration.ofSeconds(30);
+    LoadModel model = LoadModel.CLOSED;
+    int concurrency = 16;
+    int rate = 200;
+    boolean virtualThreads = false;
+    int shards = 1;
+    String variant = "default";
+    int port = 18080;
+    Map<Operation, Integer> mix = defaultMix();
+
+    static HarnessOptions parse(String[] args) {
+        HarnessOptions options = new HarnessOptions();
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            String value = args[++i];
+            switch (name) {
+                case "--students" -> options.students = Integer.parseInt(value);
+                case "--warmup" -> options.warmup = Duration.ofSeconds(Long.parseLong(value));
+                case "--duration" -> options.duration = Duration.ofSeconds(Long.parseLong(value));
+                case "--model" -> options.model = LoadModel.valueOf(value.toUpperCase());
+                case "--concurrency" -> options.concurrency = Integer.parseInt(value);
+                case "--rate" -> options.rate = Integer.parseInt(value);
+                case "--virtual-threads" -> options.virtualThreads = Boolean.parseBoolean(value);
+                case "--shards" -> options.shards = Integer.parseInt(value);
+                case "--variant" -> options.variant = value;
+                case "--port" -> options.port = Integer.parseInt(value);
+                case "--mix" -> options.mix = parseMix(value);
+                default -> throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        return options;
+    }
+
+    private static Map<Operation, Integer> defaultMix() {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        mix.put(Operation.GET, 60);
+        mix.put(Operation.SEARCH, 20);
+        mix.put(Operation.LIST, 2);
+        mix.put(Operation.CREATE, 8);
+        mix.put(Operation.UPDATE, 8);
+        mix.put(Operation.DELETE, 2);
+        return mix;
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Mix entries must look like get=60, got " + entry);
+            }
+            mix.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return mix;
+    }
+
+    @Override
+    public String toString() {
+        String load = model == LoadModel.CLOSED
+                ? "closed model, " + concurrency + " workers"
+                : "open model, " + rate + " req/s";
+        return students + " students, " + load + ", warmup " + warmup.toSeconds() + "s, measured "
+                + duration.toSeconds() + "s, virtual threads " + virtualThreads + ", shards " + shards
+                + ", " + variant + " jar, mix " + mix;
+    }
+}
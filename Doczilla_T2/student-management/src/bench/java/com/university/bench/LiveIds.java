@@ -0,0 +1,62 @@
+package com.university.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ids of students that currently exist, so reads and updates rarely hit deleted rows.
+ * Supports O(1) add, random pick and random removal.
+ */
+public class LiveIds {
+    private final ReentrantLock lock = new ReentrantLock();
+    private long[] ids;
+    private int size;
+
+    public LiveIds() {
+        this.ids = new long[16];
+    }
+
+    public void add(long id) {
+        lock.lock();
+        try {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Random live id, or -1 if there are none
+     */
+    public long pick() {
+        lock.lock();
+        try {
+            return size == 0 ? -1 : ids[ThreadLocalRandom.current().nextInt(size)];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns a random live id
+     * @return Removed id, or -1 if there are none
+     */
+    public long take() {
+        lock.lock();
+        try {
+            if (size == 0) {
+                return -1;
+            }
+            int index = ThreadLocalRandom.current().nextInt(size);
+            long id = ids[index];
+            ids[index] = ids[--size];
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.university.bench;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.util.FileSystemUtils;
+import org.sqlite.SQLiteDataSource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Launches the packaged application as a separate process (see {@link ApplicationProcess}) against a temporary
+ * database split into --shards files, seeds it and drives a configurable read/write mix through the REST API,
+ * reporting throughput and latency per endpoint and the server's heap and thread counts.
+ * Latencies in the open model are measured from the intended send time, so server stalls are not hidden.
+ * Run with: mvn -Pbench test-compile exec:exec -Dbench.main=com.university.bench.LoadTestHarness -Dbench.args="--help"
+ */
+public class LoadTestHarness {
+    private static final Pattern CREATED_ID = Pattern.compile("\"id\":(\\d+)");
+    private static final int SEARCH_LIMIT = 20;
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HarnessOptions options;
+    private final String serverUrl;
+    private final String baseUrl;
+    private final LiveIds liveIds = new LiveIds();
+    private final StudentDataGenerator generator = new StudentDataGenerator();
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final Operation[] weightedOperations;
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    LoadTestHarness(HarnessOptions options) {
+        this.options = options;
+        this.serverUrl = "http://localhost:" + options.port;
+        this.baseUrl = serverUrl + "/api/students";
+        this.weightedOperations = options.mix.entrySet().stream()
+                .flatMap(e -> Collections.nCopies(e.getValue(), e.getKey()).stream())
+                .toArray(Operation[]::new);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--help")) {
+            System.out.println("Options: --students N --warmup SEC --duration SEC --model closed|open "
+                    + "--concurrency N --rate REQ_PER_SEC --virtual-threads true|false --shards N "
+                    + "--variant default|fast --port N "
+                    + "--mix get=60,search=20,list=2,create=8,update=8,delete=2");
+            return;
+        }
+        HarnessOptions options = HarnessOptions.parse(args);
+        Path workDir = Files.createTempDirectory("student-bench");
+        List<String> arguments = List.of(
+                "--server.port=" + options.port,
+                "--student.database.path=" + workDir.resolve("students.db"),
+                "--spring.threads.virtual.enabled=" + options.virtualThreads,
+                "--student.database.shards=" + options.shards,
+                "--logging.level.com.university=WARN");
+        try {
+            System.out.println("Seeding " + options.students + " students...");
+            seed(options.variant, arguments, workDir, options.students);
+
+            try (ApplicationProcess application = ApplicationProcess.start(
+                    options.variant, List.of(), arguments, workDir.resolve("application.log"))) {
+                LoadTestHarness harness = new LoadTestHarness(options);
+                application.awaitAnswering(URI.create(harness.baseUrl), STARTUP_TIMEOUT);
+                harness.loadLiveIds();
+                harness.run();
+            }
+        } finally {
+            FileSystemUtils.deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * Lets the application create and migrate its shard files, then seeds an equal share of the students
+     * straight into each file before the measured application starts
+     */
+    private static void seed(String variant, List<String> arguments, Path workDir, int students) throws Exception {
+        try (ApplicationProcess application = ApplicationProcess.start(variant,
+                List.of("-Dspring.context.exit=onRefresh"), arguments, workDir.resolve("migration.log"))) {
+            application.awaitExit(STARTUP_TIMEOUT);
+        }
+        List<Path> shardFiles;
+        try (Stream<Path> files = Files.list(workDir)) {
+            shardFiles = files.filter(file -> file.getFileName().toString().endsWith(".db")).sorted().toList();
+        }
+        StudentDataGenerator generator = new StudentDataGenerator();
+        for (int shard = 0; shard < shardFiles.size(); shard++) {
+            SQLiteDataSource dataSource = new SQLiteDataSource();
+            dataSource.setUrl("jdbc:sqlite:" + shardFiles.get(shard));
+            generator.seed(dataSource, students / shardFiles.size() + (shard < students % shardFiles.size() ? 1 : 0));
+        }
+    }
+
+    /**
+     * Fetches the ids of the seeded students through the API
+     */
+    private void loadLiveIds() throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "?fields=id"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = CREATED_ID.matcher(response.body());
+        while (matcher.find()) {
+            liveIds.add(Long.parseLong(matcher.group(1)));
+        }
+    }
+
+    void run() {
+        System.out.println("Running: " + options);
+        long startNanos = System.nanoTime();
+        long measureFromNanos = startNanos + options.warmup.toNanos();
+        long endNanos = measureFromNanos + options.duration.toNanos();
+
+        if (options.model == HarnessOptions.LoadModel.CLOSED) {
+            runClosed(measureFromNanos, endNanos);
+        } else {
+            runOpen(startNanos, measureFromNanos, endNanos);
+        }
+        report();
+    }
+
+    private void runClosed(long measureFromNanos, long endNanos) {
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < options.concurrency; i++) {
+                workers.submit(() -> {
+                    while (System.nanoTime() < endNanos) {
+                        Operation operation = nextOperation();
+                        long sentAt = System.nanoTime();
+                        int status = execute(operation);
+                        record(operation, sentAt, status, measureFromNanos);
+                    }
+                });
+            }
+        }
+    }
+
+    private void runOpen(long startNanos, long measureFromNanos, long endNanos) {
+        long intervalNanos = 1_000_000_000L / options.rate;
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long intendedAt = startNanos; intendedAt < endNanos; intendedAt += intervalNanos) {
+                long delay = intendedAt - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                long scheduledAt = intendedAt;
+                senders.submit(() -> {
+                    Operation operation = nextOperation();
+                    int status = execute(operation);
+                    record(operation, scheduledAt, status, measureFromNanos);
+                });
+            }
+        }
+    }
+
+    private Operation nextOperation() {
+        return weightedOperations[ThreadLocalRandom.current().nextInt(weightedOperations.length)];
+    }
+
+    /**
+     * Sends one request for the operation
+     * @return HTTP status, 0 if the operation had nothing to act on, -1 on transport failure
+     */
+    private int execute(Operation operation) {
+        try {
+            return switch (operation) {
+                case LIST -> send(HttpRequest.newBuilder(URI.create(baseUrl)).GET());
+                case GET -> withId(liveIds.pick(), id -> send(HttpRequest.newBuilder(uri(id)).GET()));
+                case SEARCH -> send(HttpRequest.newBuilder(URI.create(baseUrl + "/search?limit=" + SEARCH_LIMIT
+                        + "&q=" + URLEncoder.encode(generator.searchQuery(), StandardCharsets.UTF_8))).GET());
+                case CREATE -> create();
+                case UPDATE -> withId(liveIds.pick(), id -> send(HttpRequest.newBuilder(uri(id))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(generator.studentJson()))));
+                case DELETE -> withId(liveIds.take(), id -> send(HttpRequest.newBuilder(uri(id)).DELETE()));
+            };
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private int create() throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(generator.studentJson()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = CREATED_ID.matcher(response.body());
+        if (response.statusCode() == 201 && matcher.find()) {
+            liveIds.add(Long.parseLong(matcher.group(1)));
+        }
+        return response.statusCode();
+    }
+
+    private int send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private URI uri(long id) {
+        return URI.create(baseUrl + "/" + id);
+    }
+
+    private interface IdRequest {
+        int send(long id) throws Exception;
+    }
+
+    private static int withId(long id, IdRequest request) throws Exception {
+        return id < 0 ? 0 : request.send(id);
+    }
+
+    private void record(Operation operation, long sentAtNanos, int status, long measureFromNanos) {
+        if (status == 0 || sentAtNanos < measureFromNanos) {
+            return;
+        }
+        long micros = (System.nanoTime() - sentAtNanos) / 1_000;
+        latencies.get(operation).recordValue(Math.max(1, micros));
+        if (status < 0 || status >= 400) {
+            errors.get(operation).increment();
+        }
+    }
+
+    private void report() {
+        double seconds = options.duration.toNanos() / 1e9;
+        Histogram total = new Histogram(3);
+
+        System.out.printf("%n%-8s %10s %8s %12s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            total.add(histogram);
+            printRow(operation.name(), histogram, errors.get(operation).sum(), seconds);
+        }
+        long totalErrors = errors.values().stream().mapToLong(LongAdder::sum).sum();
+        printRow("TOTAL", total, totalErrors, seconds);
+
+        try {
+            String metrics = client.send(HttpRequest.newBuilder(URI.create(serverUrl + "/actuator/prometheus"))
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString()).body();
+            System.out.printf("%nserver heap used: %d MB, committed: %d MB, peak platform threads: %d%n",
+                    (long) sum(metrics, "jvm_memory_used_bytes{area=\"heap\"") >> 20,
+                    (long) sum(metrics, "jvm_memory_committed_bytes{area=\"heap\"") >> 20,
+                    (long) sum(metrics, "jvm_threads_peak_threads"));
+        } catch (Exception e) {
+            System.out.println("Could not read the server's metrics: " + e);
+        }
+    }
+
+    /**
+     * @return Sum of the samples in Prometheus text format whose name and leading labels match the prefix
+     */
+    private static double sum(String metrics, String prefix) {
+        return metrics.lines()
+                .filter(line -> line.startsWith(prefix))
+                .mapToDouble(line -> Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1)))
+                .sum();
+    }
+
+    private static void printRow(String name, Histogram histogram, long errorCount, double seconds) {
+        System.out.printf("%-8s %10d %8d %12.1f %10.2f %10.2f %10.2f %10.2f%n",
+                name,
+                histogram.getTotalCount(),
+                errorCount,
+                histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+}
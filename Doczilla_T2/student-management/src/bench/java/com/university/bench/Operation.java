@@ -0,0 +1,13 @@
+package com.university.bench;
+
+/**
+ * Requests the harness can issue against /api/students
+ */
+public enum Operation {
+    LIST,
+    GET,
+    SEARCH,
+    CREATE,
+    UPDATE,
+    DELETE
+}
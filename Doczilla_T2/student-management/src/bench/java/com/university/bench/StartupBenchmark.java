@@ -0,0 +1,82 @@
+package com.university.bench;
+
+import org.springframework.util.FileSystemUtils;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time-to-first-request of the packaged application: from launching the JVM until
+ * GET /api/students first answers 200. Every variant gets one unmeasured run that migrates a
+ * fresh database and warms the page cache, then the measured runs start against that database.
+ * Variants are those of {@link ApplicationProcess}.
+ * Run with: mvn -Pbench test-compile exec:exec -Dbench.main=com.university.bench.StartupBenchmark -Dbench.args="--runs 10"
+ */
+public class StartupBenchmark {
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+
+    private final int port;
+
+    StartupBenchmark(int port) {
+        this.port = port;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = 5;
+        int port = 18080;
+        List<String> variants = List.of("default", "fast");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--runs" -> runs = Integer.parseInt(args[i + 1]);
+                case "--port" -> port = Integer.parseInt(args[i + 1]);
+                case "--variants" -> variants = Arrays.asList(args[i + 1].split(","));
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]
+                        + ", expected --runs N --port N --variants default,fast");
+            }
+        }
+
+        StartupBenchmark benchmark = new StartupBenchmark(port);
+        for (String variant : variants) {
+            benchmark.measure(variant, runs);
+        }
+    }
+
+    void measure(String variant, int runs) throws Exception {
+        if (!Files.exists(ApplicationProcess.jar(variant))) {
+            System.out.println(variant + ": " + ApplicationProcess.jar(variant) + " not found, skipped");
+            return;
+        }
+
+        Path dataDir = Files.createTempDirectory("student-startup");
+        try {
+            List<String> arguments = List.of(
+                    "--server.port=" + port,
+                    "--student.database.path=" + dataDir.resolve("students.db"));
+            timeToFirstRequest(variant, arguments, dataDir);
+
+            long[] millis = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                millis[run] = timeToFirstRequest(variant, arguments, dataDir);
+            }
+            Arrays.sort(millis);
+            System.out.printf("%-8s time to first request over %d runs: min %d ms, median %d ms, max %d ms%n",
+                    variant, runs, millis[0], millis[runs / 2], millis[runs - 1]);
+        } finally {
+            FileSystemUtils.deleteRecursively(dataDir);
+        }
+    }
+
+    private long timeToFirstRequest(String variant, List<String> arguments, Path dataDir) throws Exception {
+        long start = System.nanoTime();
+        try (ApplicationProcess application = ApplicationProcess.start(
+                variant, List.of(), arguments, dataDir.resolve("startup.log"))) {
+            application.awaitAnswering(URI.create("http://localhost:" + port + "/api/students"), STARTUP_TIMEOUT);
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+    }
+}
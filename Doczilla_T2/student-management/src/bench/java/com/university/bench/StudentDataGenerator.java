@@ -0,0 +1,94 @@
+package com.university.bench;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Produces valid random student data and seeds it straight into the database
+ */
+public class StudentDataGenerator {
+    private static final String[] FIRST_NAMES = {
+            "Anna", "Boris", "Daria", "Egor", "Elena", "Fedor", "Galina", "Igor", "Irina", "Ivan",
+            "Kirill", "Maria", "Nikita", "Olga", "Pavel", "Roman", "Sofia", "Timur", "Vera", "Yuri"
+    };
+    private static final String[] LAST_NAMES = {
+            "Antonov", "Belov", "Volkov", "Gromov", "Dmitriev", "Egorov", "Zaitsev", "Ivanov", "Kozlov",
+            "Lebedev", "Morozov", "Novikov", "Orlov", "Petrov", "Romanov", "Sokolov", "Tarasov", "Fedorov"
+    };
+    private static final String[] MIDDLE_NAMES = {
+            "Andreevich", "Borisovna", "Viktorovich", "Gennadievna", "Olegovich", "Pavlovna", "Sergeevich"
+    };
+    private static final int GROUPS = 200;
+    private static final int SEED_BATCH_SIZE = 5_000;
+
+    private static final String INSERT_STUDENT =
+            "INSERT INTO students (first_name, last_name, middle_name, birth_date, group_number) " +
+                    "VALUES (?, ?, ?, ?, ?)";
+
+    /**
+     * Inserts students in large batches inside one transaction per batch
+     * @param dataSource Database to seed
+     * @param count Number of students to insert
+     * @throws SQLException if database operation fails
+     */
+    public void seed(DataSource dataSource, int count) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(INSERT_STUDENT)) {
+            conn.setAutoCommit(false);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 1; i <= count; i++) {
+                ps.setString(1, pick(FIRST_NAMES, random));
+                ps.setString(2, pick(LAST_NAMES, random));
+                ps.setString(3, random.nextInt(4) == 0 ? null : pick(MIDDLE_NAMES, random));
+                ps.setString(4, birthDate(random).toString());
+                ps.setString(5, groupNumber(random));
+                ps.addBatch();
+                if (i % SEED_BATCH_SIZE == 0 || i == count) {
+                    ps.executeBatch();
+                    conn.commit();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return JSON body of a valid create or update request
+     */
+    public String studentJson() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return "{\"firstName\":\"" + pick(FIRST_NAMES, random) + "\"," +
+                "\"lastName\":\"" + pick(LAST_NAMES, random) + "\"," +
+                "\"middleName\":\"" + pick(MIDDLE_NAMES, random) + "\"," +
+                "\"birthDate\":\"" + birthDate(random) + "\"," +
+                "\"groupNumber\":\"" + groupNumber(random) + "\"}";
+    }
+
+    /**
+     * @return Search query of one or two name prefixes, e.g. "Iva Pe"
+     */
+    public String searchQuery() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String first = prefix(pick(FIRST_NAMES, random), random);
+        return random.nextBoolean() ? first : first + " " + prefix(pick(LAST_NAMES, random), random);
+    }
+
+    private static String prefix(String word, ThreadLocalRandom random) {
+        return word.substring(0, 2 + random.nextInt(word.length() - 1));
+    }
+
+    private static LocalDate birthDate(ThreadLocalRandom random) {
+        return LocalDate.of(1980, 1, 1).plusDays(random.nextInt(25 * 365));
+    }
+
+    private static String groupNumber(ThreadLocalRandom random) {
+        return "GR-" + random.nextInt(GROUPS);
+    }
+
+    private static String pick(String[] values, ThreadLocalRandom random) {
+        return values[random.nextInt(values.length)];
+    }
+}
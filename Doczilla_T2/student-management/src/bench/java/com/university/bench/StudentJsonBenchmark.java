@@ -0,0 +1,95 @@
+package com.university.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.university.json.StudentProjectionSerializer;
+import com.university.json.StudentSerializer;
+import com.university.model.Student;
+import com.university.model.StudentField;
+import com.university.model.StudentProjection;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a student list with an ObjectMapper configured the way Spring MVC configures it,
+ * through bean introspection and through StudentSerializer as registered by the application.
+ * The projection benchmarks reduce each row to a sparse fieldset and serialize it, once as a map per row
+ * and once as a StudentProjection of sparse students.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentJsonBenchmark {
+
+    @Param({"1000"})
+    int size;
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper streamingObjectMapper;
+    private List<Student> students;
+    private final Set<StudentField> fields = EnumSet.of(StudentField.ID, StudentField.LAST_NAME);
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        streamingObjectMapper = Jackson2ObjectMapperBuilder.json()
+                .serializers(new StudentSerializer(), new StudentProjectionSerializer())
+                .build();
+        students = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            Student student = new Student();
+            student.setId((long) i);
+            student.setFirstName("Ivan");
+            student.setLastName("Petrov");
+            student.setMiddleName(i % 4 == 0 ? null : "Sergeevich");
+            student.setBirthDate(LocalDate.of(2000, 1, 1).plusDays(i));
+            student.setGroupNumber("GR-" + (i % 200));
+            students.add(student);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws Exception {
+        return objectMapper.writeValueAsBytes(students);
+    }
+
+    @Benchmark
+    public byte[] serializeListStreaming() throws Exception {
+        return streamingObjectMapper.writeValueAsBytes(students);
+    }
+
+    @Benchmark
+    public byte[] projectAsMaps() throws Exception {
+        List<Map<String, Object>> rows = new ArrayList<>(students.size());
+        for (Student student : students) {
+            Map<String, Object> row = new LinkedHashMap<>(fields.size() * 2);
+            row.put(StudentField.ID.getProperty(), student.getId());
+            row.put(StudentField.LAST_NAME.getProperty(), student.getLastName());
+            rows.add(row);
+        }
+        return streamingObjectMapper.writeValueAsBytes(rows);
+    }
+
+    @Benchmark
+    public byte[] projectAsStudents() throws Exception {
+        List<Student> rows = new ArrayList<>(students.size());
+        for (Student student : students) {
+            Student row = new Student();
+            row.setId(student.getId());
+            row.setLastName(student.getLastName());
+            rows.add(row);
+        }
+        return streamingObjectMapper.writeValueAsBytes(new StudentProjection(fields, rows));
+    }
+}
@@ -0,0 +1,41 @@
+package com.university.bench;
+
+import com.university.model.Student;
+import com.university.validation.StudentValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentValidatorBenchmark {
+    private final StudentValidator validator = new StudentValidator();
+    private Student student;
+
+    @Setup
+    public void setUp() {
+        student = new Student();
+        student.setFirstName("Иван");
+        student.setLastName("Petrov-Vodkin");
+        student.setMiddleName("Sergeevich");
+        student.setBirthDate(LocalDate.of(2001, 5, 17));
+        student.setGroupNumber("ИВТ-21");
+    }
+
+    @Benchmark
+    public Student validateStudent() {
+        validator.validateStudent(student);
+        return student;
+    }
+
+    @Benchmark
+    public Student validateAge() {
+        validator.validateAge(student.getBirthDate());
+        return student;
+    }
+}
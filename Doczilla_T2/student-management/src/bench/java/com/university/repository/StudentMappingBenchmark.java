@@ -0,0 +1,93 @@
+package com.university.repository;
+
+import com.university.bench.StudentDataGenerator;
+import com.university.bulkhead.AdaptiveLimiter;
+import com.university.bulkhead.DatabaseBulkhead;
+import com.university.metrics.DatabaseMetrics;
+import com.university.shard.DatabaseShard;
+import com.university.shard.DatabaseShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sqlite.SQLiteDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning query rows into Student objects, against a scan that reads no columns
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentMappingBenchmark {
+    private static final String SELECT_ALL_STUDENTS = "SELECT " + StudentRepository.STUDENT_COLUMNS + " FROM students";
+
+    @Param({"1000"})
+    int rows;
+
+    private Path databaseFile;
+    private Connection connection;
+    private PreparedStatement selectAll;
+    private StudentRepository repository;
+
+    @Setup
+    public void setUp() throws Exception {
+        databaseFile = Files.createTempFile("student-mapping", ".db");
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + databaseFile);
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE students (id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                    + "first_name TEXT NOT NULL, last_name TEXT NOT NULL, middle_name TEXT, "
+                    + "birth_date TEXT NOT NULL, group_number TEXT NOT NULL, birth_day INTEGER)");
+        }
+        new StudentDataGenerator().seed(dataSource, rows);
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("UPDATE students SET birth_day = unixepoch(birth_date) / 86400");
+        }
+
+        AdaptiveLimiter unlimited = new AdaptiveLimiter("benchmark", 1, Integer.MAX_VALUE, 0,
+                Duration.ZERO, Duration.ofDays(1), Duration.ZERO);
+        DatabaseShard shard = new DatabaseShard(0, databaseFile, dataSource, new DatabaseBulkhead(unlimited, unlimited));
+        repository = new StudentRepository(new DatabaseShards(List.of(shard), Runnable::run),
+                new DatabaseMetrics(new SimpleMeterRegistry()));
+        connection = dataSource.getConnection();
+        selectAll = connection.prepareStatement(SELECT_ALL_STUDENTS);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        selectAll.close();
+        connection.close();
+        Files.deleteIfExists(databaseFile);
+    }
+
+    @Benchmark
+    public void scanOnly(Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = selectAll.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs);
+            }
+        }
+    }
+
+    @Benchmark
+    public void scanAndMap(Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = selectAll.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(repository.mapResultSetToStudent(rs));
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.university.bulkhead;
+
+import com.university.exception.ServiceOverloadedException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Concurrency limiter with a bounded FIFO wait queue and an AIMD-adjusted limit.
+ * The limit shrinks multiplicatively when operations take longer than the latency target, at most once
+ * per window: operations that were already in flight when the limit last shrank cannot shrink it again,
+ * so one burst of slow completions costs a single backoff. It grows by roughly one per window of fast
+ * operations while the limiter is fully used. Freed permits go to queued callers in arrival order before
+ * any new caller, so waiting requests cannot be overtaken indefinitely.
+ * Uses a ReentrantLock rather than synchronized so waiting virtual threads do not pin their carriers.
+ */
+public class AdaptiveLimiter {
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueueSize;
+    private final long maxWaitNanos;
+    private final long latencyTargetNanos;
+    private final long retryAfterSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Callers waiting for a permit, oldest first */
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+    private double limit;
+    private int inFlight;
+    private long rejected;
+    private long completed;
+    /** Number of permits handed out so far; each operation is identified by its position */
+    private long acquired;
+    /** Operations up to this position were in flight at the last backoff and cannot cause another */
+    private long backoffBarrier;
+
+    public AdaptiveLimiter(String name, int minLimit, int maxLimit, int maxQueueSize,
+                           Duration maxWait, Duration latencyTarget, Duration retryAfter) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limits for bulkhead " + name + ": " + minLimit + ".." + maxLimit);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueueSize = maxQueueSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        this.limit = maxLimit;
+    }
+
+    /**
+     * Runs the operation once a permit is available
+     * @param operation Operation to run
+     * @return Operation result
+     * @throws ServiceOverloadedException if the wait queue is full or no permit frees up in time
+     */
+    public <T> T call(Supplier<T> operation) {
+        long position = acquire();
+        long start = System.nanoTime();
+        try {
+            return operation.get();
+        } finally {
+            release(position, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return Position of the acquired permit
+     */
+    private long acquire() {
+        lock.lock();
+        try {
+            if (waiters.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                return ++acquired;
+            }
+            if (waiters.size() >= maxQueueSize) {
+                throw reject("queue is full");
+            }
+
+            Waiter waiter = new Waiter(lock.newCondition());
+            waiters.addLast(waiter);
+            try {
+                long remainingNanos = maxWaitNanos;
+                while (waiter.position == 0) {
+                    if (remainingNanos <= 0) {
+                        waiters.remove(waiter);
+                        throw reject("no permit within " + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + " ms");
+                    }
+                    remainingNanos = waiter.granted.awaitNanos(remainingNanos);
+                }
+                return waiter.position;
+            } catch (InterruptedException e) {
+                if (waiter.position != 0) {
+                    // The permit was handed over just before the interrupt; pass it on
+                    inFlight--;
+                    grantWaiting();
+                } else {
+                    waiters.remove(waiter);
+                }
+                Thread.currentThread().interrupt();
+                throw reject("interrupted while waiting");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long position, long latencyNanos) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= (int) limit;
+            inFlight--;
+            completed++;
+            if (latencyNanos > latencyTargetNanos) {
+                if (position > backoffBarrier) {
+                    limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                    backoffBarrier = acquired;
+                }
+            } else if (saturated) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            grantWaiting();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands free permits to the oldest waiters; the permit is counted as in flight before the waiter wakes,
+     * so no newer caller can take it in between
+     */
+    private void grantWaiting() {
+        while (!waiters.isEmpty() && inFlight < (int) limit) {
+            Waiter waiter = waiters.pollFirst();
+            inFlight++;
+            waiter.position = ++acquired;
+            waiter.granted.signal();
+        }
+    }
+
+    private ServiceOverloadedException reject(String reason) {
+        rejected++;
+        return new ServiceOverloadedException(
+                "Database " + name + " capacity exhausted (" + reason + ")", retryAfterSeconds);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCompleted() {
+        lock.lock();
+        try {
+            return completed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Waiter {
+        private final Condition granted;
+        /** Position of the permit once handed over, 0 while waiting */
+        private long position;
+
+        Waiter(Condition granted) {
+            this.granted = granted;
+        }
+    }
+}
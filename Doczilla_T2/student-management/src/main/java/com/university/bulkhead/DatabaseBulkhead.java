@@ -0,0 +1,40 @@
+package com.university.bulkhead;
+
+import java.util.function.Supplier;
+
+/**
+ * Separate concurrency limits for database reads and writes, so a burst of one kind
+ * cannot take every request thread while it waits for SQLite locks
+ */
+public class DatabaseBulkhead {
+    private final AdaptiveLimiter readLimiter;
+    private final AdaptiveLimiter writeLimiter;
+
+    public DatabaseBulkhead(AdaptiveLimiter readLimiter, AdaptiveLimiter writeLimiter) {
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+    }
+
+    public <T> T read(Supplier<T> operation) {
+        return readLimiter.call(operation);
+    }
+
+    public <T> T write(Supplier<T> operation) {
+        return writeLimiter.call(operation);
+    }
+
+    public void write(Runnable operation) {
+        writeLimiter.call(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    public AdaptiveLimiter getReadLimiter() {
+        return readLimiter;
+    }
+
+    public AdaptiveLimiter getWriteLimiter() {
+        return writeLimiter;
+    }
+}
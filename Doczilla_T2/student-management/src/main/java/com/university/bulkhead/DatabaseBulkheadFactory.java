@@ -0,0 +1,15 @@
+package com.university.bulkhead;
+
+/**
+ * Creates the bulkhead of one database shard; every shard gets its own limiters
+ * so a slow shard cannot use up the permits of the others
+ */
+@FunctionalInterface
+public interface DatabaseBulkheadFactory {
+
+    /**
+     * @param shard Shard index, used to tell the shard's meters apart
+     * @return New bulkhead with its meters registered
+     */
+    DatabaseBulkhead create(int shard);
+}
@@ -0,0 +1,64 @@
+package com.university.config;
+
+import com.university.bulkhead.AdaptiveLimiter;
+import com.university.bulkhead.DatabaseBulkhead;
+import com.university.bulkhead.DatabaseBulkheadFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class BulkheadConfig {
+
+    @Bean
+    public DatabaseBulkheadFactory databaseBulkheadFactory(
+            MeterRegistry registry,
+            @Value("${student.bulkhead.read.min-concurrency}") int readMin,
+            @Value("${student.bulkhead.read.max-concurrency}") int readMax,
+            @Value("${student.bulkhead.read.queue-size}") int readQueue,
+            @Value("${student.bulkhead.read.max-wait}") Duration readMaxWait,
+            @Value("${student.bulkhead.read.latency-target}") Duration readLatencyTarget,
+            @Value("${student.bulkhead.write.min-concurrency}") int writeMin,
+            @Value("${student.bulkhead.write.max-concurrency}") int writeMax,
+            @Value("${student.bulkhead.write.queue-size}") int writeQueue,
+            @Value("${student.bulkhead.write.max-wait}") Duration writeMaxWait,
+            @Value("${student.bulkhead.write.latency-target}") Duration writeLatencyTarget,
+            @Value("${student.bulkhead.retry-after}") Duration retryAfter) {
+
+        return shard -> {
+            AdaptiveLimiter reads = new AdaptiveLimiter("read", readMin, readMax, readQueue,
+                    readMaxWait, readLatencyTarget, retryAfter);
+            AdaptiveLimiter writes = new AdaptiveLimiter("write", writeMin, writeMax, writeQueue,
+                    writeMaxWait, writeLatencyTarget, retryAfter);
+            bindMetrics(registry, reads, shard);
+            bindMetrics(registry, writes, shard);
+            return new DatabaseBulkhead(reads, writes);
+        };
+    }
+
+    private void bindMetrics(MeterRegistry registry, AdaptiveLimiter limiter, int shard) {
+        Tags tags = Tags.of("bulkhead", limiter.getName(), "shard", Integer.toString(shard));
+        Gauge.builder("students.bulkhead.limit", limiter, AdaptiveLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("students.bulkhead.in.flight", limiter, AdaptiveLimiter::getInFlight)
+                .description("Operations currently holding a permit")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("students.bulkhead.waiting", limiter, AdaptiveLimiter::getWaiting)
+                .description("Operations queued for a permit")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("students.bulkhead.rejected", limiter, AdaptiveLimiter::getRejected)
+                .description("Operations shed because the bulkhead was saturated")
+                .tags(tags)
+                .register(registry);
+    }
+}
@@ -1,36 +1,107 @@
 package com.university.config;
 
+import com.university.bulkhead.DatabaseBulkheadFactory;
+import com.university.shard.DatabaseShard;
+import com.university.shard.DatabaseShards;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.sqlite.SQLiteDataSource;
 
 import javax.sql.DataSource;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 @Configuration
 public class DatabaseConfig {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConfig.class);
 
+    private static final String SELECT_ID_RANGE = "SELECT MIN(id), MAX(id) FROM students";
+    private static final String RAISE_SEQUENCE =
+            "UPDATE sqlite_sequence SET seq = ? WHERE name = 'students' AND seq < ?";
+    private static final String INSERT_SEQUENCE =
+            "INSERT INTO sqlite_sequence (name, seq) SELECT 'students', ? " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM sqlite_sequence WHERE name = 'students')";
+
+    /**
+     * The primary database, which is also shard 0
+     */
     @Bean
-    public DataSource dataSource() {
+    public DataSource dataSource(@Value("${student.database.path}") String databasePath) {
+        return createDataSource(Path.of(databasePath).toAbsolutePath(), 0);
+    }
+
+    @Bean
+    public DatabaseShards databaseShards(
+            DataSource dataSource,
+            DatabaseBulkheadFactory bulkheadFactory,
+            @Value("${student.database.path}") String databasePath,
+            @Value("${student.database.shards}") int shardCount,
+            @Value("${student.bulkhead.read.max-concurrency}") int readConcurrency) {
+        if (shardCount < 1 || shardCount > DatabaseShards.MAX_SHARDS) {
+            throw new IllegalArgumentException("student.database.shards must be between 1 and "
+                    + DatabaseShards.MAX_SHARDS + ", got " + shardCount);
+        }
+
+        Path primary = Path.of(databasePath).toAbsolutePath();
+        List<DatabaseShard> shards = new ArrayList<>(shardCount);
+        shards.add(new DatabaseShard(0, primary, dataSource, bulkheadFactory.create(0)));
+        for (int index = 1; index < shardCount; index++) {
+            Path path = shardPath(primary, index);
+            shards.add(new DatabaseShard(index, path, createDataSource(path, index), bulkheadFactory.create(index)));
+        }
+        return new DatabaseShards(shards, shardQueryExecutor(shardCount, readConcurrency));
+    }
+
+    /**
+     * Runs the shard queries of a fan-out, apart from the application task executor whose threads
+     * block on change feed subscribers. One thread per read permit of every shard but the last, which
+     * the calling thread queries itself; bulkheads cap the queries anyway, so a fan-out that finds every
+     * thread busy runs the query on the calling thread instead of queueing it.
+     * Platform threads, because SQLite's native calls would pin virtual ones. Not a bean: an Executor bean
+     * would replace Spring Boot's application task executor.
+     */
+    private Executor shardQueryExecutor(int shardCount, int readConcurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        int threads = Math.max(1, (shardCount - 1) * readConcurrency);
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(0);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setDaemon(true);
+        executor.setThreadNamePrefix("shard-query-");
+        executor.setRejectedExecutionHandler((task, pool) -> task.run());
+        executor.initialize();
+        return executor;
+    }
+
+    private DataSource createDataSource(Path dbFile, int shard) {
         SQLiteDataSource dataSource = new SQLiteDataSource();
 
         try {
-            String userDir = System.getProperty("user.dir");
-            Path dbDir = Path.of(userDir, "data");
-            Files.createDirectories(dbDir);
+            Files.createDirectories(dbFile.getParent());
 
-            String dbPath = dbDir.resolve("students.db").toString();
+            String dbPath = dbFile.toString();
             logger.info("Database path: {}", dbPath);
 
             dataSource.setUrl("jdbc:sqlite:" + dbPath);
+            // Readers and the writer no longer block each other; DatabaseMaintenance checkpoints the WAL
+            dataSource.setJournalMode("WAL");
+            // In WAL mode a deferred transaction that has to wait for the write lock fails instead of retrying
+            dataSource.setTransactionMode("IMMEDIATE");
 
             initializeSchema(dataSource);
+            reserveIdRange(dataSource, shard, dbPath);
 
             return dataSource;
         } catch (Exception e) {
@@ -40,13 +111,65 @@ public class DatabaseConfig {
 
     private void initializeSchema(DataSource dataSource) {
         try {
-            ResourceDatabasePopulator populator = new ResourceDatabasePopulator();
-            populator.addScript(new ClassPathResource("schema.sql"));
-            populator.execute(dataSource);
-            logger.info("Database schema initialized successfully");
+            int version = new SchemaMigrator(dataSource).migrate();
+            logger.info("Database schema is at version {}", version);
         } catch (Exception e) {
             logger.error("Failed to initialize database schema", e);
             throw new RuntimeException("Failed to initialize database schema", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Makes the shard's AUTOINCREMENT sequence continue inside the shard's ID range, and refuses
+     * to start if the file holds IDs of another shard, e.g. after database files were renamed
+     */
+    private void reserveIdRange(DataSource dataSource, int shard, String dbPath) throws SQLException {
+        long rangeStart = DatabaseShards.idRangeStart(shard);
+
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = conn.prepareStatement(SELECT_ID_RANGE);
+                     ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    long minId = rs.getLong(1);
+                    boolean empty = rs.wasNull();
+                    long maxId = rs.getLong(2);
+                    if (!empty && (DatabaseShards.shardIndexOf(minId) != shard
+                            || DatabaseShards.shardIndexOf(maxId) != shard)) {
+                        throw new IllegalStateException("Database " + dbPath + " holds student IDs " + minId
+                                + ".." + maxId + ", outside the ID range of shard " + shard);
+                    }
+                }
+                if (rangeStart > 0) {
+                    try (PreparedStatement raise = conn.prepareStatement(RAISE_SEQUENCE);
+                         PreparedStatement insert = conn.prepareStatement(INSERT_SEQUENCE)) {
+                        raise.setLong(1, rangeStart);
+                        raise.setLong(2, rangeStart);
+                        raise.executeUpdate();
+                        insert.setLong(1, rangeStart);
+                        insert.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * @return Path of shard N next to the primary database, e.g. data/students-2.db for data/students.db
+     */
+    private Path shardPath(Path primary, int shard) {
+        String fileName = primary.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        String shardName = extension > 0
+                ? fileName.substring(0, extension) + "-" + shard + fileName.substring(extension)
+                : fileName + "-" + shard;
+        return primary.resolveSibling(shardName);
+    }
+}
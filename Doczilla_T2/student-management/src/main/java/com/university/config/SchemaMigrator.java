@@ -0,0 +1,127 @@
+package com.university.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the versioned scripts from db/migration that the database has not seen yet.
+ * The schema version is kept in PRAGMA user_version, so starting against an up-to-date
+ * database costs a single query. Each script runs in its own write transaction together
+ * with its version bump, so several instances starting at once apply it exactly once.
+ */
+public class SchemaMigrator {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    /**
+     * Statement separator used in migration scripts; plain ';' cannot be used because trigger bodies contain it
+     */
+    private static final String SCRIPT_SEPARATOR = "@@";
+
+    /**
+     * Migration scripts in version order; applying script N brings the database to version N.
+     * Listed explicitly rather than discovered, to avoid scanning the classpath at startup.
+     * Scripts written before versioning existed use IF NOT EXISTS so they are safe on databases
+     * created by the old run-every-boot schema.sql, which are at version 0.
+     */
+    private static final List<String> MIGRATIONS = List.of(
+            "db/migration/V1__create_students.sql",
+            "db/migration/V2__add_name_search_index.sql",
+            "db/migration/V3__add_statistics_tables.sql",
+            "db/migration/V4__add_birth_day_column.sql",
+            "db/migration/V5__add_birth_date_stats.sql"
+    );
+
+    private static final String COUNT_TABLES = "SELECT COUNT(*) FROM sqlite_master";
+
+    /**
+     * Lets DatabaseMaintenance return pages freed by deletes to the file system in small steps.
+     * Switching to WAL has already written the database header, so the mode only takes effect after
+     * a VACUUM; that is instant on an empty database, older databases need a one-off VACUUM by hand.
+     */
+    private static final String ENABLE_INCREMENTAL_VACUUM = "PRAGMA auto_vacuum = INCREMENTAL";
+    private static final String VACUUM = "VACUUM";
+
+    private final DataSource dataSource;
+
+    public SchemaMigrator(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Brings the database schema to the latest version
+     * @return Schema version after migration
+     * @throws SQLException if a migration fails; the failed script is rolled back
+     * @throws IllegalStateException if the database was migrated by a newer application version
+     */
+    public int migrate() throws SQLException {
+        int latest = MIGRATIONS.size();
+        try (Connection conn = dataSource.getConnection()) {
+            int version = readVersion(conn);
+            if (version > latest) {
+                throw new IllegalStateException("Database schema version " + version
+                        + " is newer than the latest known version " + latest);
+            }
+            if (version == 0 && isEmpty(conn)) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(ENABLE_INCREMENTAL_VACUUM);
+                    stmt.execute(VACUUM);
+                }
+            }
+            for (int next = version + 1; next <= latest; next++) {
+                apply(conn, next);
+            }
+            return latest;
+        }
+    }
+
+    private void apply(Connection conn, int version) throws SQLException {
+        String script = MIGRATIONS.get(version - 1);
+        long start = System.nanoTime();
+
+        try (Statement stmt = conn.createStatement()) {
+            // IMMEDIATE takes the write lock up front, so the version check below cannot race another instance
+            stmt.execute("BEGIN IMMEDIATE");
+            try {
+                if (readVersion(conn) >= version) {
+                    stmt.execute("COMMIT");
+                    logger.info("Schema migration {} was already applied by another instance", script);
+                    return;
+                }
+                ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource(script));
+                populator.setSeparator(SCRIPT_SEPARATOR);
+                populator.populate(conn);
+                stmt.execute("PRAGMA user_version = " + version);
+                stmt.execute("COMMIT");
+            } catch (SQLException | RuntimeException e) {
+                stmt.execute("ROLLBACK");
+                throw e;
+            }
+        }
+        logger.info("Applied schema migration {} in {} ms", script,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private boolean isEmpty(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(COUNT_TABLES)) {
+            return rs.next() && rs.getInt(1) == 0;
+        }
+    }
+
+    private int readVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
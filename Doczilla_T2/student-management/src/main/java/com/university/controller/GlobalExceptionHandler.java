@@ -1,15 +1,19 @@
 package com.university.controller;
 
 import com.university.exception.BusinessException;
+import com.university.exception.ServiceOverloadedException;
 import com.university.exception.StudentNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.util.DisconnectedClientHelper;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
@@ -42,6 +46,32 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<Map<String, Object>> handleServiceOverloadedException(
+            ServiceOverloadedException ex, WebRequest request) {
+
+        Map<String, Object> body = createErrorBody(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service is temporarily overloaded, please retry later"
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(body);
+    }
+
+    @ExceptionHandler(IOException.class)
+    public ResponseEntity<Map<String, Object>> handleIOException(
+            IOException ex, WebRequest request) {
+
+        // A client that went away, typically a closed change feed, cannot receive an error body
+        if (DisconnectedClientHelper.isClientDisconnectedException(ex)) {
+            logger.debug("Client disconnected: {}", ex.getMessage());
+            return null;
+        }
+        return handleAllUncaughtException(ex, request);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleAllUncaughtException(
             Exception ex, WebRequest request) {
@@ -0,0 +1,43 @@
+package com.university.controller;
+
+import com.university.model.GroupCount;
+import com.university.model.StudentStatistics;
+import com.university.service.StatisticsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/statistics")
+@CrossOrigin(origins = "*")
+public class StatisticsController {
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsController.class);
+
+    private final StatisticsService statisticsService;
+
+    public StatisticsController(StatisticsService statisticsService) {
+        this.statisticsService = statisticsService;
+    }
+
+    /**
+     * Get total, per-group and per-age student counts
+     * @return Student statistics
+     */
+    @GetMapping
+    public ResponseEntity<StudentStatistics> getStatistics() {
+        logger.info("REST request to get student statistics");
+        return ResponseEntity.ok(statisticsService.getStatistics());
+    }
+
+    /**
+     * Get the number of students in a group
+     * @param groupNumber Group number
+     * @return Group count
+     */
+    @GetMapping("/groups/{groupNumber}")
+    public ResponseEntity<GroupCount> getGroupCount(@PathVariable String groupNumber) {
+        logger.info("REST request to get statistics for group: {}", groupNumber);
+        return ResponseEntity.ok(statisticsService.getGroupCount(groupNumber));
+    }
+}
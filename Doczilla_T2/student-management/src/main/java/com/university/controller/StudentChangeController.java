@@ -0,0 +1,37 @@
+package com.university.controller;
+
+import com.university.feed.StudentChangeFeed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/students/changes")
+@CrossOrigin(origins = "*")
+public class StudentChangeController {
+    private static final Logger logger = LoggerFactory.getLogger(StudentChangeController.class);
+
+    private final StudentChangeFeed changeFeed;
+
+    public StudentChangeController(StudentChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    /**
+     * Stream created, updated and deleted events as server-sent events.
+     * Browsers resume automatically by sending the Last-Event-ID header on reconnect;
+     * other clients can pass the last event ID they processed as ?since=
+     * @param lastEventId Last-Event-ID header
+     * @param since Last event ID, used when the header is absent
+     * @return Event stream
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(required = false) String since) {
+        logger.info("REST request to stream Student changes since: {}", lastEventId != null ? lastEventId : since);
+        return changeFeed.subscribe(lastEventId != null ? lastEventId : since);
+    }
+}
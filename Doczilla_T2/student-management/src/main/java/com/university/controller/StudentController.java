@@ -1,13 +1,21 @@
 package com.university.controller;
 
+import com.university.model.GroupOperationResult;
+import com.university.model.GroupTransferRequest;
 import com.university.model.Student;
+import com.university.model.StudentBatchRequest;
+import com.university.model.StudentBatchResult;
+import com.university.model.StudentProjection;
 import com.university.service.StudentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -39,9 +47,125 @@ public class StudentController {
      * @return List of all students
      */
     @GetMapping
-    public ResponseEntity<List<Student>> getAllStudents() {
+    public ResponseEntity<List<Student>> getAllStudents(WebRequest request) {
         logger.info("REST request to get all Students");
+        String eTag = studentService.getDataVersion();
+        if (request.checkNotModified(eTag)) {
+            return notModified(eTag);
+        }
         List<Student> students = studentService.getAllStudents();
+        return ok(students, eTag);
+    }
+
+    /**
+     * Get the requested properties of all students, e.g. ?fields=id,firstName,lastName,
+     * or of the students of one group, e.g. ?group=ИВТ-101&fields=id,lastName
+     * @param fields Comma-separated property names
+     * @param group Group number, all students if absent
+     * @return One object per student containing only the requested properties
+     */
+    @GetMapping(params = "fields")
+    public ResponseEntity<StudentProjection> getAllStudents(
+            @RequestParam String fields,
+            @RequestParam(required = false) String group,
+            WebRequest request) {
+        logger.info("REST request to get Students in group {} with fields: {}", group, fields);
+        String eTag = studentService.getDataVersion();
+        if (request.checkNotModified(eTag)) {
+            return notModified(eTag);
+        }
+        StudentProjection students = group != null
+                ? studentService.getStudentsByGroup(group, fields)
+                : studentService.getAllStudents(fields);
+        return ok(students, eTag);
+    }
+
+    /**
+     * Get the students of one group, e.g. ?group=ИВТ-101
+     * @param group Group number
+     * @return Students of the group in ID order
+     */
+    @GetMapping(params = {"group", "!fields"})
+    public ResponseEntity<List<Student>> getStudentsByGroup(@RequestParam String group, WebRequest request) {
+        logger.info("REST request to get Students in group: {}", group);
+        String eTag = studentService.getDataVersion();
+        if (request.checkNotModified(eTag)) {
+            return notModified(eTag);
+        }
+        List<Student> students = studentService.getStudentsByGroup(group);
+        return ok(students, eTag);
+    }
+
+    /**
+     * Get the students born within a date range, e.g. ?from=2000-01-01&to=2003-12-31
+     * @param from Earliest birth date, inclusive
+     * @param to Latest birth date, inclusive
+     * @return Students born in the range, in ID order
+     */
+    @GetMapping("/born")
+    public ResponseEntity<List<Student>> getStudentsBornBetween(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            WebRequest request) {
+        logger.info("REST request to get Students born between {} and {}", from, to);
+        String eTag = studentService.getDataVersion();
+        if (request.checkNotModified(eTag)) {
+            return notModified(eTag);
+        }
+        List<Student> students = studentService.getStudentsBornBetween(from, to);
+        return ok(students, eTag);
+    }
+
+    /**
+     * Get the students whose age today is within a range, e.g. ?min=18&max=21.
+     * The answer also changes at midnight without any write, so the date is part of the ETag.
+     * @param minAge Lowest age, inclusive
+     * @param maxAge Highest age, inclusive
+     * @return Students in the age range, in ID order
+     */
+    @GetMapping("/age")
+    public ResponseEntity<List<Student>> getStudentsByAge(
+            @RequestParam(name = "min", required = false) Integer minAge,
+            @RequestParam(name = "max", required = false) Integer maxAge,
+            WebRequest request) {
+        logger.info("REST request to get Students aged {} to {}", minAge, maxAge);
+        String eTag = studentService.getDataVersion() + "-" + LocalDate.now();
+        if (request.checkNotModified(eTag)) {
+            return notModified(eTag);
+        }
+        List<Student> students = studentService.getStudentsByAge(minAge, maxAge);
+        return ok(students, eTag);
+    }
+
+    /**
+     * Search students by name
+     * @param query Name words, each matched as a prefix of first, last or middle name
+     * @param limit Maximum number of results
+     * @return Matching students, most relevant first
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<Student>> searchStudents(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "20") int limit) {
+        logger.info("REST request to search Students by name: {}", query);
+        List<Student> students = studentService.searchStudents(query, limit);
+        return ResponseEntity.ok(students);
+    }
+
+    /**
+     * Search students by name, returning only the requested properties
+     * @param query Name words, each matched as a prefix of first, last or middle name
+     * @param limit Maximum number of results
+     * @param fields Comma-separated property names
+     * @return Matching students, most relevant first
+     */
+    @GetMapping(value = "/search", params = "fields")
+    public ResponseEntity<StudentProjection> searchStudents(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam String fields) {
+        logger.info("REST request to search Students by name: {} with fields: {}", query, fields);
+        StudentProjection students = studentService.searchStudents(query, limit, fields);
         return ResponseEntity.ok(students);
     }
 
@@ -51,10 +175,53 @@ public class StudentController {
      * @return Student if found
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Student> getStudent(@PathVariable Long id) {
+    public ResponseEntity<Student> getStudent(@PathVariable Long id, WebRequest request) {
         logger.info("REST request to get Student with ID: {}", id);
+        String eTag = studentService.getDataVersion();
+        if (request.checkNotModified(eTag)) {
+            return notModified(eTag);
+        }
         Student student = studentService.getStudentById(id);
-        return ResponseEntity.ok(student);
+        return ok(student, eTag);
+    }
+
+    /**
+     * Get several students by ID in one request
+     * @param batchRequest Body of the form {"ids": [1, 2, 3]}
+     * @return Found students in request order and the IDs that were not found
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<StudentBatchResult> getStudentsByIds(@RequestBody StudentBatchRequest batchRequest) {
+        logger.info("REST request to get Students by IDs");
+        StudentBatchResult result = studentService.getStudentsByIds(batchRequest.getIds());
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Move every student of a group to another group in one operation
+     * @param groupNumber Current group number
+     * @param transferRequest Body of the form {"targetGroupNumber": "ИВТ-201"}
+     * @return Number of students moved
+     */
+    @PostMapping("/groups/{groupNumber}/transfer")
+    public ResponseEntity<GroupOperationResult> transferGroup(
+            @PathVariable String groupNumber,
+            @RequestBody GroupTransferRequest transferRequest) {
+        logger.info("REST request to transfer group {} to {}", groupNumber, transferRequest.getTargetGroupNumber());
+        GroupOperationResult result = studentService.transferGroup(groupNumber, transferRequest.getTargetGroupNumber());
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Delete every student of a group in one operation
+     * @param groupNumber Group number
+     * @return Number of students deleted
+     */
+    @DeleteMapping("/groups/{groupNumber}")
+    public ResponseEntity<GroupOperationResult> expelGroup(@PathVariable String groupNumber) {
+        logger.info("REST request to expel group {}", groupNumber);
+        GroupOperationResult result = studentService.expelGroup(groupNumber);
+        return ResponseEntity.ok(result);
     }
 
     /**
@@ -84,4 +251,28 @@ public class StudentController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Builds a 200 response tagged with the table version; clients must revalidate before reusing it
+     * @param body Response body
+     * @param eTag Table version the body was read at
+     * @return Response entity
+     */
+    private <T> ResponseEntity<T> ok(T body, String eTag) {
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
+
+    /**
+     * Builds a 304 response for a client whose cached copy is still current
+     * @param eTag Current table version
+     * @return Response entity without body
+     */
+    private <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
 }
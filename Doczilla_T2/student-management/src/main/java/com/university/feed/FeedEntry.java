@@ -0,0 +1,33 @@
+package com.university.feed;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * One server-sent event as queued for subscribers
+ */
+@Getter
+@AllArgsConstructor
+class FeedEntry {
+    static final String RESET = "reset";
+    static final String HEARTBEAT = "heartbeat";
+
+    /** Position in the feed; a reset carries the position of the last change it covers */
+    private final long sequence;
+    private final String name;
+    private final Object data;
+
+    static FeedEntry reset(long sequence) {
+        return new FeedEntry(sequence, RESET, Map.of());
+    }
+
+    static FeedEntry heartbeat() {
+        return new FeedEntry(-1, HEARTBEAT, null);
+    }
+
+    boolean isHeartbeat() {
+        return HEARTBEAT.equals(name);
+    }
+}
@@ -0,0 +1,134 @@
+package com.university.feed;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A connected feed client with its own bounded queue.
+ * Publishers only enqueue; at most one drain task per subscriber writes to the connection,
+ * so a slow client never blocks writers or other subscribers. When the queue overflows
+ * its contents are replaced by a single reset event and the client reloads instead.
+ */
+class FeedSubscriber {
+    private final SseEmitter emitter;
+    private final Executor executor;
+    private final int capacity;
+    private final Function<Long, String> eventId;
+    private final Consumer<FeedSubscriber> onClose;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<FeedEntry> queue = new ArrayDeque<>();
+    private boolean draining;
+    private boolean closed;
+
+    FeedSubscriber(SseEmitter emitter, Executor executor, int capacity,
+                   Function<Long, String> eventId, Consumer<FeedSubscriber> onClose) {
+        this.emitter = emitter;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.eventId = eventId;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Queues an event without blocking
+     * @param entry Event to deliver
+     * @return false if the queue was full and has been replaced by a reset
+     */
+    boolean offer(FeedEntry entry) {
+        lock.lock();
+        try {
+            if (closed) {
+                return true;
+            }
+            boolean accepted = queue.size() < capacity;
+            if (accepted) {
+                queue.add(entry);
+            } else {
+                queue.clear();
+                queue.add(FeedEntry.reset(entry.getSequence()));
+            }
+            scheduleDrain();
+            return accepted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues a keep-alive comment unless events are already pending
+     */
+    void heartbeat() {
+        lock.lock();
+        try {
+            if (!closed && queue.isEmpty()) {
+                queue.add(FeedEntry.heartbeat());
+                scheduleDrain();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.clear();
+        } finally {
+            lock.unlock();
+        }
+        onClose.accept(this);
+    }
+
+    private void scheduleDrain() {
+        if (!draining) {
+            draining = true;
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            FeedEntry entry;
+            lock.lock();
+            try {
+                entry = closed ? null : queue.poll();
+                if (entry == null) {
+                    draining = false;
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                emitter.send(toEvent(entry));
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the container reports the error to the emitter callbacks as well
+                close();
+                return;
+            }
+        }
+    }
+
+    private SseEmitter.SseEventBuilder toEvent(FeedEntry entry) {
+        if (entry.isHeartbeat()) {
+            return SseEmitter.event().comment(FeedEntry.HEARTBEAT);
+        }
+        return SseEmitter.event()
+                .id(eventId.apply(entry.getSequence()))
+                .name(entry.getName())
+                .data(entry.getData(), MediaType.APPLICATION_JSON);
+    }
+}
@@ -0,0 +1,16 @@
+package com.university.feed;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Application event published by StudentService after a set-based operation has been committed,
+ * carrying one change per affected student so listeners can apply them in a single pass
+ */
+@Getter
+@AllArgsConstructor
+public class StudentBulkChangedEvent {
+    private final List<StudentChangedEvent> changes;
+}
@@ -0,0 +1,193 @@
+package com.university.feed;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sequenced feed of student changes delivered to clients as server-sent events.
+ * Recent changes are kept in a ring buffer so a reconnecting client can resume from the last
+ * event ID it saw. Whenever the missed changes cannot be replayed (first connection, ID too old,
+ * ID from before a restart, client too slow) the client gets a reset event and must reload.
+ */
+@Component
+public class StudentChangeFeed {
+    private static final Logger logger = LoggerFactory.getLogger(StudentChangeFeed.class);
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    /**
+     * Runs the drain tasks, which block in SseEmitter#send for as long as their client does not read.
+     * One virtual thread per task, so a stalled client holds only its own thread and never a shared pool's.
+     * There is at most one drain task per subscriber.
+     */
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("change-feed-", 0).factory());
+    private final int subscriberQueueSize;
+    private final long timeoutMillis;
+    private final Counter resets;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final FeedEntry[] history;
+    private final Set<FeedSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private long sequence;
+
+    public StudentChangeFeed(
+            MeterRegistry registry,
+            @Value("${student.changes.history-size}") int historySize,
+            @Value("${student.changes.subscriber-queue-size}") int subscriberQueueSize,
+            @Value("${student.changes.timeout}") Duration timeout) {
+        this.subscriberQueueSize = subscriberQueueSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.history = new FeedEntry[historySize];
+
+        Gauge.builder("students.changes.subscribers", subscribers, Set::size)
+                .description("Clients connected to the change feed")
+                .register(registry);
+        this.resets = Counter.builder("students.changes.resets")
+                .description("Reset events sent because changes could not be replayed")
+                .register(registry);
+    }
+
+    /**
+     * Assigns the next sequence number to a committed change and queues it for every subscriber.
+     * StudentChangePublisher delivers the changes of each student in commit order, so the sequence
+     * follows commit order for every student.
+     * @param event Committed change
+     */
+    @EventListener
+    public void onStudentChanged(StudentChangedEvent event) {
+        lock.lock();
+        try {
+            append(event);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sequences every change of a set-based operation in turn, without other changes in between
+     * @param event Committed changes
+     */
+    @EventListener
+    public void onStudentsChanged(StudentBulkChangedEvent event) {
+        lock.lock();
+        try {
+            for (StudentChangedEvent change : event.getChanges()) {
+                append(change);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Opens a new feed connection
+     * @param lastEventId ID of the last event the client processed, or null for a fresh start
+     * @return Emitter streaming missed changes (or a reset) followed by live changes
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(new SseEmitter(timeoutMillis), lastEventId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, String lastEventId) {
+        FeedSubscriber subscriber = new FeedSubscriber(emitter, executor, subscriberQueueSize,
+                this::eventId, subscribers::remove);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> subscriber.close());
+
+        lock.lock();
+        try {
+            subscribers.add(subscriber);
+            replay(subscriber, lastEventId);
+        } finally {
+            lock.unlock();
+        }
+        return emitter;
+    }
+
+    /**
+     * Keeps idle connections alive through proxies and detects clients that have gone away
+     */
+    @Scheduled(fixedDelayString = "${student.changes.heartbeat-interval}")
+    public void sendHeartbeats() {
+        for (FeedSubscriber subscriber : subscribers) {
+            subscriber.heartbeat();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void replay(FeedSubscriber subscriber, String lastEventId) {
+        long after = parseSequence(lastEventId);
+        long oldestKept = Math.max(1, sequence - history.length + 1);
+        if (after < oldestKept - 1 || after > sequence) {
+            logger.debug("Change feed cannot resume from '{}', sending reset", lastEventId);
+            subscriber.offer(FeedEntry.reset(sequence));
+            return;
+        }
+        for (long next = after + 1; next <= sequence; next++) {
+            if (!subscriber.offer(history[(int) (next % history.length)])) {
+                resets.increment();
+                return;
+            }
+        }
+    }
+
+    private void append(StudentChangedEvent event) {
+        FeedEntry entry = new FeedEntry(++sequence, eventName(event), eventData(event));
+        history[(int) (entry.getSequence() % history.length)] = entry;
+        for (FeedSubscriber subscriber : subscribers) {
+            if (!subscriber.offer(entry)) {
+                resets.increment();
+            }
+        }
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * @return Sequence number encoded in an event ID, or -1 if the ID is missing, malformed or from another run
+     */
+    private long parseSequence(String eventId) {
+        if (eventId == null || !eventId.startsWith(epoch + "-")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String eventName(StudentChangedEvent event) {
+        return event.getType().name().toLowerCase();
+    }
+
+    private Object eventData(StudentChangedEvent event) {
+        return event.getType() == StudentChangedEvent.Type.DELETED
+                ? Map.of("id", event.getStudentId())
+                : event.getStudent();
+    }
+}
@@ -0,0 +1,36 @@
+package com.university.feed;
+
+import com.university.model.Student;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Application event published by StudentService after a change to the students table has been committed
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class StudentChangedEvent {
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final long studentId;
+    /** New row state, null for deletions */
+    private final Student student;
+
+    public static StudentChangedEvent created(Student student) {
+        return new StudentChangedEvent(Type.CREATED, student.getId(), student);
+    }
+
+    public static StudentChangedEvent updated(Student student) {
+        return new StudentChangedEvent(Type.UPDATED, student.getId(), student);
+    }
+
+    public static StudentChangedEvent deleted(long studentId) {
+        return new StudentChangedEvent(Type.DELETED, studentId, null);
+    }
+}
@@ -0,0 +1,67 @@
+package com.university.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Writes dates in the ISO format of LocalDate#toString without creating a string per date. The characters
+ * go into a buffer shared by all dates of one serialization call: a serializer instance is shared by all
+ * threads, and request threads may be short-lived virtual threads, so neither suits a per-thread buffer.
+ */
+final class IsoDates {
+    /** yyyy-MM-dd of a four-digit year */
+    static final int LENGTH = 10;
+    /** Per-serialization attribute holding the buffer */
+    private static final Object BUFFER = new Object();
+
+    private IsoDates() {
+    }
+
+    /**
+     * @param date Date to format, may be null
+     * @param provider Provider of the current serialization call
+     * @return Shared buffer holding the date in its first LENGTH characters, valid until the next call;
+     *         null if the date is null or its year does not have four digits
+     */
+    static char[] format(LocalDate date, SerializerProvider provider) {
+        if (date == null || date.getYear() < 0 || date.getYear() > 9999) {
+            return null;
+        }
+        char[] buffer = (char[]) provider.getAttribute(BUFFER);
+        if (buffer == null) {
+            buffer = new char[LENGTH];
+            provider.setAttribute(BUFFER, buffer);
+        }
+        int year = date.getYear();
+        writeDigits(buffer, 0, year / 100);
+        writeDigits(buffer, 2, year % 100);
+        buffer[4] = '-';
+        writeDigits(buffer, 5, date.getMonthValue());
+        buffer[7] = '-';
+        writeDigits(buffer, 8, date.getDayOfMonth());
+        return buffer;
+    }
+
+    /**
+     * Writes a date as a JSON string, or null
+     */
+    static void write(LocalDate date, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        char[] formatted = format(date, provider);
+        if (formatted != null) {
+            gen.writeString(formatted, 0, LENGTH);
+        } else if (date != null) {
+            // Signed and five-digit years, which validation never lets in, keep LocalDate's own format
+            gen.writeString(date.toString());
+        } else {
+            gen.writeNull();
+        }
+    }
+
+    private static void writeDigits(char[] buffer, int offset, int twoDigits) {
+        buffer[offset] = (char) ('0' + twoDigits / 10);
+        buffer[offset + 1] = (char) ('0' + twoDigits % 10);
+    }
+}
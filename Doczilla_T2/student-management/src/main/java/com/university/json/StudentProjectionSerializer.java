@@ -0,0 +1,73 @@
+package com.university.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.university.model.Student;
+import com.university.model.StudentField;
+import com.university.model.StudentProjection;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a sparse fieldset as an array with one object per student holding only the requested properties,
+ * streamed from the students without building a map per row
+ */
+@JsonComponent
+public class StudentProjectionSerializer extends StdSerializer<StudentProjection> {
+    private static final SerializableString[] PROPERTY_NAMES = new SerializableString[StudentField.values().length];
+
+    static {
+        for (StudentField field : StudentField.values()) {
+            PROPERTY_NAMES[field.ordinal()] = new SerializedString(field.getProperty());
+        }
+    }
+
+    public StudentProjectionSerializer() {
+        super(StudentProjection.class);
+    }
+
+    @Override
+    public void serialize(StudentProjection projection, JsonGenerator gen, SerializerProvider provider)
+            throws IOException {
+        StudentField[] fields = projection.getFields().toArray(new StudentField[0]);
+        List<Student> students = projection.getStudents();
+        gen.writeStartArray(students, students.size());
+        for (Student student : students) {
+            gen.writeStartObject(student);
+            for (StudentField field : fields) {
+                gen.writeFieldName(PROPERTY_NAMES[field.ordinal()]);
+                switch (field) {
+                    case ID -> writeNumber(gen, student.getId());
+                    case FIRST_NAME -> writeString(gen, student.getFirstName());
+                    case LAST_NAME -> writeString(gen, student.getLastName());
+                    case MIDDLE_NAME -> writeString(gen, student.getMiddleName());
+                    case BIRTH_DATE -> IsoDates.write(student.getBirthDate(), gen, provider);
+                    case GROUP_NUMBER -> writeString(gen, student.getGroupNumber());
+                }
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+    }
+
+    private static void writeNumber(JsonGenerator gen, Long value) throws IOException {
+        if (value != null) {
+            gen.writeNumber(value);
+        } else {
+            gen.writeNull();
+        }
+    }
+
+    private static void writeString(JsonGenerator gen, String value) throws IOException {
+        if (value != null) {
+            gen.writeString(value);
+        } else {
+            gen.writeNull();
+        }
+    }
+}
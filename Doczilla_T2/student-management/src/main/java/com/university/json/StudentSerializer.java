@@ -0,0 +1,71 @@
+package com.university.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.university.model.Student;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/**
+ * Writes students straight to the generator instead of through bean introspection, for every response and
+ * change feed event that contains them. The output is the same as the bean serializer's, including the
+ * birthDateAsString property that clients may still read: field names are encoded once, and the birth date
+ * is formatted once per student, see {@link IsoDates}.
+ */
+@JsonComponent
+public class StudentSerializer extends StdSerializer<Student> {
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString FIRST_NAME = new SerializedString("firstName");
+    private static final SerializableString LAST_NAME = new SerializedString("lastName");
+    private static final SerializableString MIDDLE_NAME = new SerializedString("middleName");
+    private static final SerializableString BIRTH_DATE = new SerializedString("birthDate");
+    private static final SerializableString GROUP_NUMBER = new SerializedString("groupNumber");
+    private static final SerializableString BIRTH_DATE_AS_STRING = new SerializedString("birthDateAsString");
+
+    public StudentSerializer() {
+        super(Student.class);
+    }
+
+    @Override
+    public void serialize(Student student, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(student);
+        gen.writeFieldName(ID);
+        if (student.getId() != null) {
+            gen.writeNumber(student.getId());
+        } else {
+            gen.writeNull();
+        }
+        writeString(gen, FIRST_NAME, student.getFirstName());
+        writeString(gen, LAST_NAME, student.getLastName());
+        writeString(gen, MIDDLE_NAME, student.getMiddleName());
+
+        char[] date = IsoDates.format(student.getBirthDate(), provider);
+        if (date != null) {
+            gen.writeFieldName(BIRTH_DATE);
+            gen.writeString(date, 0, IsoDates.LENGTH);
+            writeString(gen, GROUP_NUMBER, student.getGroupNumber());
+            gen.writeFieldName(BIRTH_DATE_AS_STRING);
+            gen.writeString(date, 0, IsoDates.LENGTH);
+        } else {
+            gen.writeFieldName(BIRTH_DATE);
+            IsoDates.write(student.getBirthDate(), gen, provider);
+            writeString(gen, GROUP_NUMBER, student.getGroupNumber());
+            gen.writeFieldName(BIRTH_DATE_AS_STRING);
+            IsoDates.write(student.getBirthDate(), gen, provider);
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeString(JsonGenerator gen, SerializableString name, String value) throws IOException {
+        gen.writeFieldName(name);
+        if (value != null) {
+            gen.writeString(value);
+        } else {
+            gen.writeNull();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.university.metrics;
+
+import com.university.model.MaintenanceStatus;
+import com.university.service.DatabaseMaintenance;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Exposes the state of background database maintenance at /actuator/dbmaintenance, one entry per shard
+ */
+@Component
+@Endpoint(id = "dbmaintenance")
+public class DatabaseMaintenanceEndpoint {
+    private final DatabaseMaintenance maintenance;
+
+    public DatabaseMaintenanceEndpoint(DatabaseMaintenance maintenance) {
+        this.maintenance = maintenance;
+    }
+
+    @ReadOperation
+    public List<MaintenanceStatus> status() {
+        return maintenance.getStatus();
+    }
+}
@@ -0,0 +1,73 @@
+package com.university.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.sqlite.SQLiteErrorCode;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Low-level database meters that method timers cannot capture: connection acquisition,
+ * row volumes and lock contention
+ */
+@Component
+public class DatabaseMetrics {
+    private static final int PRIMARY_RESULT_CODE_MASK = 0xFF;
+
+    private final Timer connectionAcquireTimer;
+    private final Counter rowsRead;
+    private final Counter rowsWritten;
+    private final Counter busyErrors;
+
+    public DatabaseMetrics(MeterRegistry registry) {
+        this.connectionAcquireTimer = Timer.builder("students.db.connection.acquire")
+                .description("Time spent opening a database connection")
+                .register(registry);
+        this.rowsRead = Counter.builder("students.db.rows.read")
+                .description("Rows mapped from query results")
+                .register(registry);
+        this.rowsWritten = Counter.builder("students.db.rows.written")
+                .description("Rows inserted, updated or deleted")
+                .register(registry);
+        this.busyErrors = Counter.builder("students.db.busy")
+                .description("Operations that failed with SQLITE_BUSY after the driver's busy timeout")
+                .register(registry);
+    }
+
+    /**
+     * Opens a connection, recording how long it took
+     * @param dataSource Data source to open the connection from
+     * @return Open connection
+     * @throws SQLException if the connection cannot be opened
+     */
+    public Connection getConnection(DataSource dataSource) throws SQLException {
+        Timer.Sample sample = Timer.start();
+        try {
+            return dataSource.getConnection();
+        } finally {
+            sample.stop(connectionAcquireTimer);
+        }
+    }
+
+    public void recordRowsRead(int count) {
+        rowsRead.increment(count);
+    }
+
+    public void recordRowsWritten(int count) {
+        rowsWritten.increment(count);
+    }
+
+    /**
+     * Records a failed database operation, counting lock contention separately
+     * @param e Failure reported by the driver
+     */
+    public void recordFailure(SQLException e) {
+        if ((e.getErrorCode() & PRIMARY_RESULT_CODE_MASK) == SQLiteErrorCode.SQLITE_BUSY.code) {
+            busyErrors.increment();
+        }
+    }
+}
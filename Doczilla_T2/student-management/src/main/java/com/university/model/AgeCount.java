@@ -0,0 +1,14 @@
+package com.university.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Number of students of the given age today
+ */
+@Getter
+@AllArgsConstructor
+public class AgeCount {
+    private int age;
+    private long studentCount;
+}
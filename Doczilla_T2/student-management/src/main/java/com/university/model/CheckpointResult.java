@@ -0,0 +1,20 @@
+package com.university.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of PRAGMA wal_checkpoint
+ */
+@Getter
+@AllArgsConstructor
+public class CheckpointResult {
+    /** True if the checkpoint could not finish because of concurrent readers or writers */
+    private boolean busy;
+    private int walFrames;
+    private int checkpointedFrames;
+
+    public boolean isComplete() {
+        return !busy && walFrames == checkpointedFrames;
+    }
+}
@@ -0,0 +1,11 @@
+package com.university.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class GroupOperationResult {
+    private String groupNumber;
+    private int affectedStudents;
+}
@@ -0,0 +1,10 @@
+package com.university.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class GroupTransferRequest {
+    private String targetGroupNumber;
+}
@@ -0,0 +1,15 @@
+package com.university.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+public class MaintenanceRun {
+    private String task;
+    private Instant finishedAt;
+    private long durationMillis;
+    private String outcome;
+}
@@ -0,0 +1,17 @@
+package com.university.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class MaintenanceStatus {
+    private int shard;
+    private long walSizeBytes;
+    private boolean incrementalVacuumEnabled;
+    /** Whether the last check found little enough traffic to run the write-locking tasks */
+    private boolean quiet;
+    private List<MaintenanceRun> lastRuns;
+}
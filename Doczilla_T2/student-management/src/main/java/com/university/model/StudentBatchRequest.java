@@ -0,0 +1,12 @@
+package com.university.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class StudentBatchRequest {
+    private List<Long> ids;
+}
@@ -0,0 +1,13 @@
+package com.university.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class StudentBatchResult {
+    private List<Student> students;
+    private List<Long> missingIds;
+}
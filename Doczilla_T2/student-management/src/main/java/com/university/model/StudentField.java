@@ -0,0 +1,44 @@
+package com.university.model;
+
+import java.util.Optional;
+
+/**
+ * Student properties that can be requested individually, with the column each one is read from
+ */
+public enum StudentField {
+    ID("id", "id"),
+    FIRST_NAME("firstName", "first_name"),
+    LAST_NAME("lastName", "last_name"),
+    MIDDLE_NAME("middleName", "middle_name"),
+    BIRTH_DATE("birthDate", "birth_date"),
+    GROUP_NUMBER("groupNumber", "group_number");
+
+    private final String property;
+    private final String column;
+
+    StudentField(String property, String column) {
+        this.property = property;
+        this.column = column;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * @param property JSON property name, e.g. "firstName"
+     * @return Matching field, empty if there is none
+     */
+    public static Optional<StudentField> fromProperty(String property) {
+        for (StudentField field : values()) {
+            if (field.property.equals(property)) {
+                return Optional.of(field);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,18 @@
+package com.university.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Students reduced to a sparse fieldset. Only the requested properties of each student are set, and only
+ * those are written to JSON, as one object per student with the properties in field order.
+ */
+@Getter
+@AllArgsConstructor
+public class StudentProjection {
+    private Set<StudentField> fields;
+    private List<Student> students;
+}
@@ -0,0 +1,14 @@
+package com.university.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class StudentStatistics {
+    private long totalStudents;
+    private List<GroupCount> groups;
+    private List<AgeCount> ages;
+}
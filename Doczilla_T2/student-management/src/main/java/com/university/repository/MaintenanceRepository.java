@@ -0,0 +1,252 @@
+package com.university.repository;
+
+import com.university.exception.DatabaseException;
+import com.university.metrics.DatabaseMetrics;
+import com.university.model.CheckpointResult;
+import com.university.shard.DatabaseShard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * SQLite housekeeping statements, run against one shard at a time. Everything that takes the write
+ * lock goes through the shard's write bulkhead and waits for locks no longer than the given busy
+ * timeout, so maintenance queues behind foreground writes instead of stalling them.
+ */
+@Repository
+public class MaintenanceRepository {
+    private static final Logger logger = LoggerFactory.getLogger(MaintenanceRepository.class);
+
+    private static final String CHECKPOINT_PASSIVE = "PRAGMA wal_checkpoint(PASSIVE)";
+    private static final String CHECKPOINT_TRUNCATE = "PRAGMA wal_checkpoint(TRUNCATE)";
+    private static final String SELECT_AUTO_VACUUM = "PRAGMA auto_vacuum";
+    private static final String SELECT_FREELIST_COUNT = "PRAGMA freelist_count";
+    private static final String INCREMENTAL_VACUUM_PAGE = "PRAGMA incremental_vacuum(1)";
+    private static final String SET_BUSY_TIMEOUT = "PRAGMA busy_timeout = %d";
+    private static final String SET_ANALYSIS_LIMIT = "PRAGMA analysis_limit = %d";
+    private static final String STATISTICS_EXIST =
+            "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'sqlite_stat1'";
+    private static final String ANALYZE = "ANALYZE";
+    /** 0x02 runs ANALYZE where stale, 0x10000 checks every table, not only those this connection has queried */
+    private static final String OPTIMIZE_ALL_TABLES = "PRAGMA optimize(0x10002)";
+
+    /** Next batch of rows written before birth_day existed, in ID order so that progress is a single ID */
+    private static final String BACKFILL_BIRTH_DAYS =
+            "UPDATE students SET birth_day = unixepoch(birth_date) / 86400 WHERE id IN (" +
+                    "SELECT id FROM students WHERE birth_day IS NULL AND id > ? ORDER BY id LIMIT ?) RETURNING id";
+
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    private final DatabaseMetrics metrics;
+
+    public MaintenanceRepository(DatabaseMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Copies as many WAL frames into the database as possible without waiting for any lock
+     * @param shard Database to checkpoint
+     * @return Checkpoint outcome
+     * @throws DatabaseException if database operation fails
+     */
+    public CheckpointResult checkpointPassive(DatabaseShard shard) {
+        try (Connection conn = metrics.getConnection(shard.getDataSource())) {
+            return checkpoint(conn, CHECKPOINT_PASSIVE);
+        } catch (SQLException e) {
+            metrics.recordFailure(e);
+            logger.error("Error running passive WAL checkpoint in {}", shard, e);
+            throw new DatabaseException("Error running WAL checkpoint", e);
+        }
+    }
+
+    /**
+     * Checkpoints the whole WAL and truncates the file to zero bytes.
+     * Holds the write lock while it runs, so only call it when a passive checkpoint has already copied every frame.
+     * @param shard Database to checkpoint
+     * @param busyTimeout Longest time to wait for readers and writers to get out of the way
+     * @return Checkpoint outcome; busy if the timeout expired
+     * @throws DatabaseException if database operation fails
+     */
+    public CheckpointResult checkpointTruncate(DatabaseShard shard, Duration busyTimeout) {
+        return shard.getBulkhead().write(() -> {
+            try (Connection conn = metrics.getConnection(shard.getDataSource())) {
+                setBusyTimeout(conn, busyTimeout);
+                return checkpoint(conn, CHECKPOINT_TRUNCATE);
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error running truncating WAL checkpoint in {}", shard, e);
+                throw new DatabaseException("Error running WAL checkpoint", e);
+            }
+        });
+    }
+
+    /**
+     * @param shard Database to check
+     * @return true if the database was created with auto_vacuum = INCREMENTAL
+     * @throws DatabaseException if database operation fails
+     */
+    public boolean isIncrementalVacuumEnabled(DatabaseShard shard) {
+        try (Connection conn = metrics.getConnection(shard.getDataSource())) {
+            return queryInt(conn, SELECT_AUTO_VACUUM) == AUTO_VACUUM_INCREMENTAL;
+        } catch (SQLException e) {
+            metrics.recordFailure(e);
+            logger.error("Error reading auto_vacuum mode of {}", shard, e);
+            throw new DatabaseException("Error reading auto_vacuum mode", e);
+        }
+    }
+
+    /**
+     * @param shard Database to check
+     * @return Number of unused pages in the database file
+     * @throws DatabaseException if database operation fails
+     */
+    public int countFreePages(DatabaseShard shard) {
+        try (Connection conn = metrics.getConnection(shard.getDataSource())) {
+            return queryInt(conn, SELECT_FREELIST_COUNT);
+        } catch (SQLException e) {
+            metrics.recordFailure(e);
+            logger.error("Error reading freelist count of {}", shard, e);
+            throw new DatabaseException("Error reading freelist count", e);
+        }
+    }
+
+    /**
+     * Returns up to the given number of free pages to the file system in one short write transaction
+     * @param shard Database to shrink
+     * @param pages Maximum number of pages to release
+     * @param busyTimeout Longest time to wait for the write lock
+     * @throws DatabaseException if database operation fails, including when the lock was not obtained in time
+     */
+    public void incrementalVacuum(DatabaseShard shard, int pages, Duration busyTimeout) {
+        shard.getBulkhead().write(() -> {
+            try (Connection conn = metrics.getConnection(shard.getDataSource())) {
+                setBusyTimeout(conn, busyTimeout);
+                conn.setAutoCommit(false);
+
+                // The pragma releases one page per step and the driver steps a statement only once per
+                // execute, so it is re-executed once per page inside a single transaction. The statement
+                // is still in progress after its last step and has to be closed before the commit.
+                try {
+                    try (PreparedStatement stmt = conn.prepareStatement(INCREMENTAL_VACUUM_PAGE)) {
+                        for (int i = 0; i < pages; i++) {
+                            stmt.execute();
+                        }
+                    }
+                    conn.commit();
+                } catch (Exception e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error running incremental vacuum of {} pages in {}", pages, shard, e);
+                throw new DatabaseException("Error running incremental vacuum", e);
+            }
+        });
+    }
+
+    /**
+     * Refreshes query planner statistics: a full ANALYZE the first time, PRAGMA optimize afterwards,
+     * both sampling at most analysisLimit rows per index
+     * @param shard Database to analyze
+     * @param analysisLimit Approximate row limit per index, 0 for no limit
+     * @param busyTimeout Longest time to wait for the write lock
+     * @return true if a full ANALYZE was run
+     * @throws DatabaseException if database operation fails
+     */
+    public boolean optimize(DatabaseShard shard, int analysisLimit, Duration busyTimeout) {
+        return shard.getBulkhead().write(() -> {
+            try (Connection conn = metrics.getConnection(shard.getDataSource());
+                 Statement stmt = conn.createStatement()) {
+                setBusyTimeout(conn, busyTimeout);
+                stmt.execute(String.format(SET_ANALYSIS_LIMIT, analysisLimit));
+
+                boolean analyzed;
+                try (ResultSet rs = stmt.executeQuery(STATISTICS_EXIST)) {
+                    analyzed = rs.next();
+                }
+                stmt.execute(analyzed ? OPTIMIZE_ALL_TABLES : ANALYZE);
+                return !analyzed;
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error refreshing planner statistics in {}", shard, e);
+                throw new DatabaseException("Error refreshing planner statistics", e);
+            }
+        });
+    }
+
+    /**
+     * Fills birth_day for the next batch of rows that do not have it yet, in one short write transaction
+     * @param shard Database to update
+     * @param afterId Only rows with a higher ID are considered
+     * @param batchSize Maximum number of rows to update
+     * @param busyTimeout Longest time to wait for the write lock
+     * @return Highest ID that was processed, 0 if no row was left
+     * @throws DatabaseException if database operation fails
+     */
+    public long backfillBirthDays(DatabaseShard shard, long afterId, int batchSize, Duration busyTimeout) {
+        return shard.getBulkhead().write(() -> {
+            try (Connection conn = metrics.getConnection(shard.getDataSource())) {
+                setBusyTimeout(conn, busyTimeout);
+                conn.setAutoCommit(false);
+
+                long lastId = 0;
+                int updated = 0;
+                try {
+                    try (PreparedStatement ps = conn.prepareStatement(BACKFILL_BIRTH_DAYS)) {
+                        ps.setLong(1, afterId);
+                        ps.setInt(2, batchSize);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) {
+                                lastId = Math.max(lastId, rs.getLong(1));
+                                updated++;
+                            }
+                        }
+                    }
+                    conn.commit();
+                } catch (Exception e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+                metrics.recordRowsWritten(updated);
+                return lastId;
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error backfilling birth days after ID {} in {}", afterId, shard, e);
+                throw new DatabaseException("Error backfilling birth days", e);
+            }
+        });
+    }
+
+    private CheckpointResult checkpoint(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return new CheckpointResult(rs.getInt(1) != 0, rs.getInt(2), rs.getInt(3));
+        }
+    }
+
+    private void setBusyTimeout(Connection conn, Duration busyTimeout) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(String.format(SET_BUSY_TIMEOUT, busyTimeout.toMillis()));
+        }
+    }
+
+    private int queryInt(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
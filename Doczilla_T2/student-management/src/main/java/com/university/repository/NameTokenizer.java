@@ -0,0 +1,92 @@
+package com.university.repository;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits names into search tokens the way the students_fts index does with
+ * tokenize='unicode61 remove_diacritics 2': letters, digits and private-use characters form tokens,
+ * everything else separates them, tokens are lower-cased and Latin letters lose their diacritics.
+ * Cyrillic letters are kept as they are, so "й" and "и" stay different, as in FTS5.
+ */
+public final class NameTokenizer {
+
+    private NameTokenizer() {
+    }
+
+    /**
+     * @param text Name or query word, may be null
+     * @return Folded tokens in text order
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>(4);
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            int type = Character.getType(codePoint);
+            if (type == Character.NON_SPACING_MARK) {
+                // Combining diacritics belong to the preceding letter and are dropped with remove_diacritics
+                continue;
+            }
+            if (isTokenCharacter(type)) {
+                token.appendCodePoint(fold(codePoint));
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    /**
+     * Tokenizes a free-text query into the phrases StudentRepository sends to FTS5: every whitespace-separated
+     * word is a phrase whose last token is a prefix. Most words give a single token; a word containing
+     * separators, such as "Анна-Мар", gives a phrase that only matches adjacent tokens of one name, and a word
+     * of separators only, such as "-", gives nothing.
+     * @param query Free-text query
+     * @return Phrases, each a non-empty token list; empty if the query has no tokens
+     */
+    public static List<List<String>> queryPhrases(String query) {
+        List<List<String>> phrases = new ArrayList<>();
+        for (String word : query.trim().split("\\s+")) {
+            List<String> phrase = tokenize(word);
+            if (!phrase.isEmpty()) {
+                phrases.add(phrase);
+            }
+        }
+        return phrases;
+    }
+
+    private static boolean isTokenCharacter(int type) {
+        return switch (type) {
+            case Character.UPPERCASE_LETTER, Character.LOWERCASE_LETTER, Character.TITLECASE_LETTER,
+                 Character.MODIFIER_LETTER, Character.OTHER_LETTER, Character.DECIMAL_DIGIT_NUMBER,
+                 Character.LETTER_NUMBER, Character.OTHER_NUMBER, Character.PRIVATE_USE -> true;
+            default -> false;
+        };
+    }
+
+    private static int fold(int codePoint) {
+        int lower = Character.toLowerCase(codePoint);
+        if (!isLatin(lower)) {
+            return lower;
+        }
+        String decomposed = Normalizer.normalize(new String(Character.toChars(lower)), Normalizer.Form.NFD);
+        return decomposed.codePointAt(0);
+    }
+
+    /**
+     * FTS5 only removes diacritics from Latin letters: Latin-1 Supplement, Extended-A/B and Extended Additional
+     */
+    private static boolean isLatin(int codePoint) {
+        return (codePoint >= 0xC0 && codePoint <= 0x24F) || (codePoint >= 0x1E00 && codePoint <= 0x1EFF);
+    }
+}
@@ -0,0 +1,261 @@
+package com.university.repository;
+
+import com.university.exception.DatabaseException;
+import com.university.metrics.DatabaseMetrics;
+import com.university.model.GroupCount;
+import com.university.shard.DatabaseShard;
+import com.university.shard.DatabaseShards;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Repository;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Reads and repairs the summary tables maintained by the statistics triggers (see db/migration).
+ * Every shard keeps its own summary tables; counts are added up across shards.
+ */
+@Repository
+@Timed("students.repository")
+public class StatisticsRepository {
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsRepository.class);
+
+    private static final String SELECT_GROUP_COUNTS =
+            "SELECT group_number, student_count FROM group_stats ORDER BY group_number";
+
+    private static final String SELECT_GROUP_COUNT =
+            "SELECT student_count FROM group_stats WHERE group_number = ?";
+
+    private static final String SELECT_BIRTH_DATE_COUNTS =
+            "SELECT birth_date, student_count FROM birth_date_stats";
+
+    /**
+     * Summary rows that are missing, wrong or stale. One statement, so it reads one consistent
+     * snapshot without an explicit transaction, which would be IMMEDIATE and take the write lock.
+     */
+    private static final String COUNT_DRIFT =
+            "SELECT (SELECT COUNT(*) FROM (" +
+                    "SELECT group_number, COUNT(*) FROM students GROUP BY group_number " +
+                    "EXCEPT SELECT group_number, student_count FROM group_stats)) " +
+                    "+ (SELECT COUNT(*) FROM (" +
+                    "SELECT group_number, student_count FROM group_stats " +
+                    "EXCEPT SELECT group_number, COUNT(*) FROM students GROUP BY group_number)) " +
+                    "+ (SELECT COUNT(*) FROM (" +
+                    "SELECT birth_date, COUNT(*) FROM students GROUP BY birth_date " +
+                    "EXCEPT SELECT birth_date, student_count FROM birth_date_stats)) " +
+                    "+ (SELECT COUNT(*) FROM (" +
+                    "SELECT birth_date, student_count FROM birth_date_stats " +
+                    "EXCEPT SELECT birth_date, COUNT(*) FROM students GROUP BY birth_date))";
+
+    private static final String[] REBUILD_STATISTICS = {
+            "DELETE FROM group_stats",
+            "INSERT INTO group_stats (group_number, student_count) " +
+                    "SELECT group_number, COUNT(*) FROM students GROUP BY group_number",
+            "DELETE FROM birth_date_stats",
+            "INSERT INTO birth_date_stats (birth_date, student_count) " +
+                    "SELECT birth_date, COUNT(*) FROM students GROUP BY birth_date"
+    };
+
+    private final DatabaseShards shards;
+    private final DatabaseMetrics metrics;
+
+    public StatisticsRepository(DatabaseShards shards, DatabaseMetrics metrics) {
+        this.shards = shards;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Retrieves the number of students in every non-empty group
+     * @return Group counts ordered by group number
+     * @throws DatabaseException if database operation fails
+     */
+    public List<GroupCount> findGroupCounts() {
+        List<List<GroupCount>> perShard = shards.fanOut(this::findGroupCounts);
+        if (perShard.size() == 1) {
+            return perShard.get(0);
+        }
+
+        Map<String, Long> totals = new TreeMap<>();
+        for (List<GroupCount> counts : perShard) {
+            for (GroupCount count : counts) {
+                totals.merge(count.getGroupNumber(), count.getStudentCount(), Long::sum);
+            }
+        }
+        List<GroupCount> counts = new ArrayList<>(totals.size());
+        totals.forEach((groupNumber, count) -> counts.add(new GroupCount(groupNumber, count)));
+        return counts;
+    }
+
+    private List<GroupCount> findGroupCounts(DatabaseShard shard) {
+        return shard.getBulkhead().read(() -> {
+            List<GroupCount> counts = new ArrayList<>();
+
+            try (Connection conn = metrics.getConnection(shard.getDataSource());
+                 PreparedStatement ps = conn.prepareStatement(SELECT_GROUP_COUNTS);
+                 ResultSet rs = ps.executeQuery()) {
+
+                while (rs.next()) {
+                    counts.add(new GroupCount(rs.getString(1), rs.getLong(2)));
+                }
+                metrics.recordRowsRead(counts.size());
+                return counts;
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error retrieving group statistics from {}", shard, e);
+                throw new DatabaseException("Error retrieving group statistics", e);
+            }
+        });
+    }
+
+    /**
+     * Retrieves the number of students in one group
+     * @param groupNumber Group number
+     * @return Student count, empty if the group has no students
+     * @throws DatabaseException if database operation fails
+     */
+    public Optional<Long> findGroupCount(String groupNumber) {
+        Optional<Long> total = Optional.empty();
+        for (Optional<Long> count : shards.fanOut(shard -> findGroupCount(shard, groupNumber))) {
+            if (count.isPresent()) {
+                total = Optional.of(total.orElse(0L) + count.get());
+            }
+        }
+        return total;
+    }
+
+    private Optional<Long> findGroupCount(DatabaseShard shard, String groupNumber) {
+        return shard.getBulkhead().read(() -> {
+            try (Connection conn = metrics.getConnection(shard.getDataSource());
+                 PreparedStatement ps = conn.prepareStatement(SELECT_GROUP_COUNT)) {
+
+                ps.setString(1, groupNumber);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        metrics.recordRowsRead(1);
+                        return Optional.of(rs.getLong(1));
+                    }
+                    return Optional.empty();
+                }
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error retrieving statistics for group {} from {}", groupNumber, shard, e);
+                throw new DatabaseException("Error retrieving group statistics", e);
+            }
+        });
+    }
+
+    /**
+     * Retrieves the number of students born on each date
+     * @return Counts keyed by birth date
+     * @throws DatabaseException if database operation fails
+     */
+    public Map<LocalDate, Long> findBirthDateCounts() {
+        List<Map<LocalDate, Long>> perShard = shards.fanOut(this::findBirthDateCounts);
+        if (perShard.size() == 1) {
+            return perShard.get(0);
+        }
+
+        Map<LocalDate, Long> totals = new HashMap<>();
+        for (Map<LocalDate, Long> counts : perShard) {
+            counts.forEach((date, count) -> totals.merge(date, count, Long::sum));
+        }
+        return totals;
+    }
+
+    private Map<LocalDate, Long> findBirthDateCounts(DatabaseShard shard) {
+        return shard.getBulkhead().read(() -> {
+            Map<LocalDate, Long> counts = new HashMap<>();
+
+            try (Connection conn = metrics.getConnection(shard.getDataSource());
+                 PreparedStatement ps = conn.prepareStatement(SELECT_BIRTH_DATE_COUNTS);
+                 ResultSet rs = ps.executeQuery()) {
+
+                while (rs.next()) {
+                    counts.put(LocalDate.parse(rs.getString(1)), rs.getLong(2));
+                }
+                metrics.recordRowsRead(counts.size());
+                return counts;
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error retrieving birth date statistics from {}", shard, e);
+                throw new DatabaseException("Error retrieving birth date statistics", e);
+            }
+        });
+    }
+
+    /**
+     * Compares the summary tables with a full aggregation of students and rebuilds them if they differ.
+     * The comparison is a plain read that WAL runs alongside writers; only a shard that drifted takes
+     * the write bulkhead, and checks again in the rebuild transaction before replacing its tables.
+     * @return Number of summary rows that were wrong, 0 if nothing had to be rebuilt
+     * @throws DatabaseException if database operation fails
+     */
+    public int reconcile() {
+        int drift = 0;
+        for (int shardDrift : shards.fanOut(this::reconcile)) {
+            drift += shardDrift;
+        }
+        return drift;
+    }
+
+    private int reconcile(DatabaseShard shard) {
+        int drift = shard.getBulkhead().read(() -> {
+            try (Connection conn = metrics.getConnection(shard.getDataSource());
+                 Statement stmt = conn.createStatement()) {
+                return countRows(stmt, COUNT_DRIFT);
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error checking statistics in {}", shard, e);
+                throw new DatabaseException("Error checking statistics", e);
+            }
+        });
+        return drift > 0 ? rebuild(shard) : 0;
+    }
+
+    /**
+     * @return Number of summary rows that were wrong when the write transaction started, 0 if a concurrent
+     *         rebuild already repaired them
+     */
+    private int rebuild(DatabaseShard shard) {
+        return shard.getBulkhead().write(() -> {
+            try (Connection conn = metrics.getConnection(shard.getDataSource())) {
+                conn.setAutoCommit(false);
+
+                try (Statement stmt = conn.createStatement()) {
+                    int drift = countRows(stmt, COUNT_DRIFT);
+                    if (drift > 0) {
+                        for (String sql : REBUILD_STATISTICS) {
+                            stmt.executeUpdate(sql);
+                        }
+                    }
+                    conn.commit();
+                    return drift;
+                } catch (Exception e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error reconciling statistics in {}", shard, e);
+                throw new DatabaseException("Error reconciling statistics", e);
+            }
+        });
+    }
+
+    private int countRows(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -1,114 +1,195 @@
 package com.university.repository;
 
 import com.university.exception.DatabaseException;
+import com.university.metrics.DatabaseMetrics;
 import com.university.model.Student;
+import com.university.model.StudentField;
+import com.university.shard.DatabaseShard;
+import com.university.shard.DatabaseShards;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
 
-import javax.sql.DataSource;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+
+/**
+ * Student storage. Reads and writes of one student go to the shard that owns its ID;
+ * everything else is asked of every shard in parallel and merged, see {@link DatabaseShards}.
+ * With a single shard this is plain access to one database.
+ */
 @Repository
+@Timed("students.repository")
 public class StudentRepository {
     private static final Logger logger = LoggerFactory.getLogger(StudentRepository.class);
 
+    /**
+     * Birth date as epoch days, so rows are mapped without parsing text. Rows written before birth_day
+     * existed fall back to the text column until BirthDayBackfill has reached them.
+     */
+    private static final String BIRTH_DAY = "COALESCE(birth_day, unixepoch(birth_date) / 86400)";
+
+    /** Columns read by {@link #mapResultSetToStudent}, in its order */
+    static final String STUDENT_COLUMNS = "id, first_name, last_name, middle_name, " + BIRTH_DAY + ", group_number";
+
     private static final String INSERT_STUDENT =
-            "INSERT INTO students (first_name, last_name, middle_name, birth_date, group_number) " +
-                    "VALUES (?, ?, ?, ?, ?)";
+            "INSERT INTO students (first_name, last_name, middle_name, birth_date, group_number, birth_day) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)";
 
     private static final String SELECT_ALL_STUDENTS =
-            "SELECT id, first_name, last_name, middle_name, birth_date, group_number FROM students";
+            "SELECT " + STUDENT_COLUMNS + " FROM students";
 
     private static final String SELECT_STUDENT_BY_ID =
-            "SELECT id, first_name, last_name, middle_name, birth_date, group_number " +
-                    "FROM students WHERE id = ?";
+            "SELECT " + STUDENT_COLUMNS + " FROM students WHERE id = ?";
+
+    private static final String SELECT_STUDENTS_BY_IDS =
+            "SELECT " + STUDENT_COLUMNS + " FROM students WHERE id IN (%s)";
+
+    private static final int IDS_CHUNK_SIZE = 500;
 
     private static final String UPDATE_STUDENT =
             "UPDATE students SET first_name = ?, last_name = ?, middle_name = ?, " +
-                    "birth_date = ?, group_number = ? WHERE id = ?";
+                    "birth_date = ?, group_number = ?, birth_day = ? WHERE id = ?";
 
     private static final String DELETE_STUDENT =
             "DELETE FROM students WHERE id = ?";
 
+    /**
+     * Set-based group operations return the affected rows so that changes can be published without another query
+     */
+    private static final String TRANSFER_GROUP =
+            "UPDATE students SET group_number = ? WHERE group_number = ? " +
+                    "RETURNING " + STUDENT_COLUMNS;
+
+    private static final String DELETE_GROUP =
+            "DELETE FROM students WHERE group_number = ? RETURNING id";
+
     private static final String SELECT_STUDENTS_BY_GROUP =
-            "SELECT id, first_name, last_name, middle_name, birth_date, group_number " +
-                    "FROM students WHERE group_number = ?";
+            "SELECT " + STUDENT_COLUMNS + " FROM students WHERE group_number = ?";
 
-    private final DataSource dataSource;
+    /**
+     * A range scan of idx_students_birth_day; rows not backfilled yet are found through the NULL
+     * entries of the same index and compared as text, which orders like the dates themselves
+     */
+    private static final String SELECT_STUDENTS_BY_BIRTH_DAY =
+            "SELECT " + STUDENT_COLUMNS + " FROM students " +
+                    "WHERE birth_day BETWEEN ? AND ? OR (birth_day IS NULL AND birth_date BETWEEN ? AND ?) " +
+                    "ORDER BY id";
 
-    public StudentRepository(DataSource dataSource) {
-        this.dataSource = dataSource;
+    /**
+     * The rank is selected after the student columns so shards' results can be merged by relevance
+     */
+    private static final String SEARCH_STUDENTS_BY_NAME =
+            "SELECT s.id, s.first_name, s.last_name, s.middle_name, " + BIRTH_DAY + ", s.group_number, f.rank " +
+                    "FROM students_fts f JOIN students s ON s.id = f.rowid " +
+                    "WHERE students_fts MATCH ? ORDER BY f.rank LIMIT ?";
+
+    private static final String SELECT_PROJECTED_STUDENTS =
+            "SELECT %s FROM students";
+
+    private static final String SEARCH_PROJECTED_STUDENTS_BY_NAME =
+            "SELECT %s, f.rank FROM students_fts f JOIN students s ON s.id = f.rowid " +
+                    "WHERE students_fts MATCH ? ORDER BY f.rank LIMIT ?";
+
+    private final DatabaseShards shards;
+    private final DatabaseMetrics metrics;
+
+    public StudentRepository(DatabaseShards shards, DatabaseMetrics metrics) {
+        this.shards = shards;
+        this.metrics = metrics;
     }
 
     /**
      * Saves a new student to the database
      * @param student Student object to save
+     * @param onCommit Gets the saved student right after the commit, in commit order, see {@link DatabaseShard#commit}
      * @return Saved student with generated ID
      * @throws DatabaseException if database operation fails
      */
-    public Student save(Student student) {
-        String insertSql = INSERT_STUDENT;
-        String getLastIdSql = "SELECT last_insert_rowid()";
+    public Student save(Student student, Consumer<Student> onCommit) {
+        DatabaseShard shard = shards.forInsert();
+        return shard.getBulkhead().write(() -> {
+            String insertSql = INSERT_STUDENT;
+            String getLastIdSql = "SELECT last_insert_rowid()";
 
-        try (Connection conn = dataSource.getConnection()) {
-            conn.setAutoCommit(false);
+            try (Connection conn = metrics.getConnection(shard.getDataSource())) {
+                conn.setAutoCommit(false);
 
-            try (PreparedStatement ps = conn.prepareStatement(insertSql)) {
-                setStudentParameters(ps, student);
+                try (PreparedStatement ps = conn.prepareStatement(insertSql)) {
+                    setStudentParameters(ps, student);
 
-                int affectedRows = ps.executeUpdate();
-                if (affectedRows == 0) {
-                    throw new DatabaseException("Creating student failed, no rows affected.");
-                }
+                    int affectedRows = ps.executeUpdate();
+                    if (affectedRows == 0) {
+                        throw new DatabaseException("Creating student failed, no rows affected.");
+                    }
 
-                try (PreparedStatement psGetId = conn.prepareStatement(getLastIdSql);
-                     ResultSet rs = psGetId.executeQuery()) {
-                    if (rs.next()) {
-                        student.setId(rs.getLong(1));
-                        conn.commit();
-                        return student;
-                    } else {
-                        conn.rollback();
-                        throw new DatabaseException("Creating student failed, no ID obtained.");
+                    try (PreparedStatement psGetId = conn.prepareStatement(getLastIdSql);
+                         ResultSet rs = psGetId.executeQuery()) {
+                        if (rs.next()) {
+                            student.setId(rs.getLong(1));
+                            shard.commit(conn, () -> onCommit.accept(student));
+                            metrics.recordRowsWritten(affectedRows);
+                            return student;
+                        } else {
+                            conn.rollback();
+                            throw new DatabaseException("Creating student failed, no ID obtained.");
+                        }
                     }
+                } catch (Exception e) {
+                    rollbackIfOpen(conn);
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
                 }
-            } catch (Exception e) {
-                conn.rollback();
-                throw e;
-            } finally {
-                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error saving student to {}: {}", shard, student, e);
+                throw new DatabaseException("Error saving student", e);
             }
-        } catch (SQLException e) {
-            logger.error("Error saving student: {}", student, e);
-            throw new DatabaseException("Error saving student", e);
-        }
+        });
     }
 
     /**
      * Retrieves all students from the database
-     * @return List of all students
+     * @return List of all students, in ID order
      * @throws DatabaseException if database operation fails
      */
     public List<Student> findAll() {
-        List<Student> students = new ArrayList<>();
+        return concat(shards.fanOut(this::findAll));
+    }
 
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(SELECT_ALL_STUDENTS);
-             ResultSet rs = ps.executeQuery()) {
+    private List<Student> findAll(DatabaseShard shard) {
+        return shard.getBulkhead().read(() -> {
+            List<Student> students = new ArrayList<>();
 
-            while (rs.next()) {
-                students.add(mapResultSetToStudent(rs));
-            }
+            try (Connection conn = metrics.getConnection(shard.getDataSource());
+                 PreparedStatement ps = conn.prepareStatement(SELECT_ALL_STUDENTS);
+                 ResultSet rs = ps.executeQuery()) {
 
-            return students;
-        } catch (SQLException e) {
-            logger.error("Error retrieving all students", e);
-            throw new DatabaseException("Error retrieving all students", e);
-        }
+                while (rs.next()) {
+                    students.add(mapResultSetToStudent(rs));
+                }
+                metrics.recordRowsRead(students.size());
+
+                return students;
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error retrieving all students from {}", shard, e);
+                throw new DatabaseException("Error retrieving all students", e);
+            }
+        });
     }
 
     /**
@@ -118,108 +199,583 @@ public class StudentRepository {
      * @throws DatabaseException if database operation fails
      */
     public Optional<Student> findById(Long id) {
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(SELECT_STUDENT_BY_ID)) {
+        Optional<DatabaseShard> owner = shards.forId(id);
+        if (owner.isEmpty()) {
+            return Optional.empty();
+        }
+        DatabaseShard shard = owner.get();
+
+        return shard.getBulkhead().read(() -> {
+            try (Connection conn = metrics.getConnection(shard.getDataSource());
+                 PreparedStatement ps = conn.prepareStatement(SELECT_STUDENT_BY_ID)) {
 
-            ps.setLong(1, id);
+                ps.setLong(1, id);
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapResultSetToStudent(rs));
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        metrics.recordRowsRead(1);
+                        return Optional.of(mapResultSetToStudent(rs));
+                    }
+                    return Optional.empty();
                 }
-                return Optional.empty();
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error finding student with id: {}", id, e);
+                throw new DatabaseException("Error finding student by ID", e);
             }
-        } catch (SQLException e) {
-            logger.error("Error finding student with id: {}", id, e);
-            throw new DatabaseException("Error finding student by ID", e);
+        });
+    }
+
+    /**
+     * Finds all students with the given IDs, using a single connection per shard involved.
+     * IDs are looked up in chunks of IN (...) lists, so the number of queries grows with
+     * the number of chunks rather than with the number of IDs.
+     * @param ids Distinct student IDs to look up
+     * @return Found students keyed by ID; IDs that do not exist are absent
+     * @throws DatabaseException if database operation fails
+     */
+    public Map<Long, Student> findAllByIds(List<Long> ids) {
+        Map<DatabaseShard, List<Long>> idsByShard = new LinkedHashMap<>();
+        for (Long id : ids) {
+            shards.forId(id).ifPresent(shard -> idsByShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(id));
         }
+
+        Map<Long, Student> students = new HashMap<>(ids.size() * 2);
+        for (Map<Long, Student> found : shards.fanOut(idsByShard.keySet(),
+                shard -> findAllByIds(shard, idsByShard.get(shard)))) {
+            students.putAll(found);
+        }
+        return students;
+    }
+
+    private Map<Long, Student> findAllByIds(DatabaseShard shard, List<Long> ids) {
+        return shard.getBulkhead().read(() -> {
+            Map<Long, Student> students = new HashMap<>(ids.size() * 2);
+
+            try (Connection conn = metrics.getConnection(shard.getDataSource());
+                 PreparedStatement fullChunk = conn.prepareStatement(selectByIdsSql(IDS_CHUNK_SIZE))) {
+
+                for (int from = 0; from < ids.size(); from += IDS_CHUNK_SIZE) {
+                    List<Long> chunk = ids.subList(from, Math.min(from + IDS_CHUNK_SIZE, ids.size()));
+                    if (chunk.size() == IDS_CHUNK_SIZE) {
+                        readChunk(fullChunk, chunk, students);
+                    } else {
+                        try (PreparedStatement lastChunk = conn.prepareStatement(selectByIdsSql(chunk.size()))) {
+                            readChunk(lastChunk, chunk, students);
+                        }
+                    }
+                }
+                metrics.recordRowsRead(students.size());
+                return students;
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error finding {} students by ids in {}", ids.size(), shard, e);
+                throw new DatabaseException("Error finding students by IDs", e);
+            }
+        });
     }
 
     /**
      * Updates an existing student in the database
      * @param student Student object to update
+     * @param onCommit Gets the student as written right after the commit, in commit order
      * @throws DatabaseException if database operation fails
      */
-    public void update(Student student) {
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(UPDATE_STUDENT)) {
+    public void update(Student student, Consumer<Student> onCommit) {
+        DatabaseShard shard = shards.forId(student.getId())
+                .orElseThrow(() -> new DatabaseException("Updating student failed, no rows affected."));
+
+        shard.getBulkhead().write(() -> {
+            try (Connection conn = metrics.getConnection(shard.getDataSource())) {
+                conn.setAutoCommit(false);
 
-            setStudentParameters(ps, student);
-            ps.setLong(6, student.getId());
+                try (PreparedStatement ps = conn.prepareStatement(UPDATE_STUDENT)) {
+                    setStudentParameters(ps, student);
+                    ps.setLong(7, student.getId());
 
-            int affectedRows = ps.executeUpdate();
-            if (affectedRows == 0) {
-                throw new DatabaseException("Updating student failed, no rows affected.");
+                    int affectedRows = ps.executeUpdate();
+                    if (affectedRows == 0) {
+                        throw new DatabaseException("Updating student failed, no rows affected.");
+                    }
+                    shard.commit(conn, () -> onCommit.accept(student));
+                    metrics.recordRowsWritten(affectedRows);
+                } catch (Exception e) {
+                    rollbackIfOpen(conn);
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error updating student: {}", student, e);
+                throw new DatabaseException("Error updating student", e);
             }
-        } catch (SQLException e) {
-            logger.error("Error updating student: {}", student, e);
-            throw new DatabaseException("Error updating student", e);
-        }
+        });
     }
 
     /**
      * Deletes a student by their ID
      * @param id ID of the student to delete
+     * @param onCommit Runs right after the commit if the student was deleted, in commit order
      * @return true if student was deleted, false if student was not found
      * @throws DatabaseException if database operation fails
      */
-    public boolean deleteById(Long id) {
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(DELETE_STUDENT)) {
+    public boolean deleteById(Long id, Runnable onCommit) {
+        Optional<DatabaseShard> owner = shards.forId(id);
+        if (owner.isEmpty()) {
+            return false;
+        }
+        DatabaseShard shard = owner.get();
 
-            ps.setLong(1, id);
+        return shard.getBulkhead().write(() -> {
+            try (Connection conn = metrics.getConnection(shard.getDataSource())) {
+                conn.setAutoCommit(false);
 
-            int affectedRows = ps.executeUpdate();
-            return affectedRows > 0;
-        } catch (SQLException e) {
-            logger.error("Error deleting student with id: {}", id, e);
-            throw new DatabaseException("Error deleting student", e);
-        }
+                try (PreparedStatement ps = conn.prepareStatement(DELETE_STUDENT)) {
+                    ps.setLong(1, id);
+
+                    int affectedRows = ps.executeUpdate();
+                    if (affectedRows > 0) {
+                        shard.commit(conn, onCommit);
+                    } else {
+                        conn.rollback();
+                    }
+                    metrics.recordRowsWritten(affectedRows);
+                    return affectedRows > 0;
+                } catch (Exception e) {
+                    rollbackIfOpen(conn);
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error deleting student with id: {}", id, e);
+                throw new DatabaseException("Error deleting student", e);
+            }
+        });
+    }
+
+    /**
+     * Moves every student of a group to another group with one UPDATE per shard, each in its own transaction.
+     * With several shards a failure in one shard does not undo the shards that have already committed.
+     * @param groupNumber Current group number
+     * @param targetGroupNumber New group number
+     * @param onCommit Gets each shard's updated students in ID order right after that shard's commit, in commit order
+     * @return Updated students in ID order
+     * @throws DatabaseException if database operation fails
+     */
+    public List<Student> transferGroup(String groupNumber, String targetGroupNumber,
+                                       Consumer<List<Student>> onCommit) {
+        return concat(shards.fanOut(shard -> transferGroup(shard, groupNumber, targetGroupNumber, onCommit)));
+    }
+
+    private List<Student> transferGroup(DatabaseShard shard, String groupNumber, String targetGroupNumber,
+                                        Consumer<List<Student>> onCommit) {
+        return shard.getBulkhead().write(() -> {
+            List<Student> students = new ArrayList<>();
+
+            try (Connection conn = metrics.getConnection(shard.getDataSource())) {
+                conn.setAutoCommit(false);
+                try {
+                    // Every returned row has to be read, and the statement closed, before the commit
+                    try (PreparedStatement ps = conn.prepareStatement(TRANSFER_GROUP)) {
+                        ps.setString(1, targetGroupNumber);
+                        ps.setString(2, groupNumber);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) {
+                                students.add(mapResultSetToStudent(rs));
+                            }
+                        }
+                    }
+                    // RETURNING yields rows in the order they are changed, not necessarily by ID
+                    students.sort(Comparator.comparing(Student::getId));
+                    shard.commit(conn, () -> onCommit.accept(students));
+                } catch (Exception e) {
+                    rollbackIfOpen(conn);
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+                metrics.recordRowsWritten(students.size());
+                return students;
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error transferring group {} to {} in {}", groupNumber, targetGroupNumber, shard, e);
+                throw new DatabaseException("Error transferring group", e);
+            }
+        });
+    }
+
+    /**
+     * Deletes every student of a group with one DELETE per shard, each in its own transaction.
+     * With several shards a failure in one shard does not undo the shards that have already committed.
+     * @param groupNumber Group number
+     * @param onCommit Gets each shard's deleted IDs in ascending order right after that shard's commit, in commit order
+     * @return IDs of the deleted students in ascending order
+     * @throws DatabaseException if database operation fails
+     */
+    public List<Long> deleteByGroup(String groupNumber, Consumer<List<Long>> onCommit) {
+        return concat(shards.fanOut(shard -> deleteByGroup(shard, groupNumber, onCommit)));
+    }
+
+    private List<Long> deleteByGroup(DatabaseShard shard, String groupNumber, Consumer<List<Long>> onCommit) {
+        return shard.getBulkhead().write(() -> {
+            List<Long> ids = new ArrayList<>();
+
+            try (Connection conn = metrics.getConnection(shard.getDataSource())) {
+                conn.setAutoCommit(false);
+                try {
+                    try (PreparedStatement ps = conn.prepareStatement(DELETE_GROUP)) {
+                        ps.setString(1, groupNumber);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) {
+                                ids.add(rs.getLong(1));
+                            }
+                        }
+                    }
+                    Collections.sort(ids);
+                    shard.commit(conn, () -> onCommit.accept(ids));
+                } catch (Exception e) {
+                    rollbackIfOpen(conn);
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+                metrics.recordRowsWritten(ids.size());
+                return ids;
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error deleting group {} in {}", groupNumber, shard, e);
+                throw new DatabaseException("Error deleting group", e);
+            }
+        });
     }
 
     /**
      * Finds all students in a specific group
      * @param groupNumber Group number to search for
-     * @return List of students in the specified group
+     * @return List of students in the specified group, in ID order
      * @throws DatabaseException if database operation fails
      */
     public List<Student> findByGroup(String groupNumber) {
-        List<Student> students = new ArrayList<>();
+        return concat(shards.fanOut(shard -> findByGroup(shard, groupNumber)));
+    }
+
+    private List<Student> findByGroup(DatabaseShard shard, String groupNumber) {
+        return shard.getBulkhead().read(() -> {
+            List<Student> students = new ArrayList<>();
+
+            try (Connection conn = metrics.getConnection(shard.getDataSource());
+                 PreparedStatement ps = conn.prepareStatement(SELECT_STUDENTS_BY_GROUP)) {
+
+                ps.setString(1, groupNumber);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        students.add(mapResultSetToStudent(rs));
+                    }
+                }
+                metrics.recordRowsRead(students.size());
+                return students;
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error finding students in group {} in {}", groupNumber, shard, e);
+                throw new DatabaseException("Error finding students by group", e);
+            }
+        });
+    }
+
+    /**
+     * Finds students born within a date range
+     * @param from Earliest birth date, inclusive
+     * @param to Latest birth date, inclusive
+     * @return Students born in the range, in ID order
+     * @throws DatabaseException if database operation fails
+     */
+    public List<Student> findByBirthDateBetween(LocalDate from, LocalDate to) {
+        return concat(shards.fanOut(shard -> findByBirthDateBetween(shard, from, to)));
+    }
 
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(SELECT_STUDENTS_BY_GROUP)) {
+    private List<Student> findByBirthDateBetween(DatabaseShard shard, LocalDate from, LocalDate to) {
+        return shard.getBulkhead().read(() -> {
+            List<Student> students = new ArrayList<>();
 
-            ps.setString(1, groupNumber);
+            try (Connection conn = metrics.getConnection(shard.getDataSource());
+                 PreparedStatement ps = conn.prepareStatement(SELECT_STUDENTS_BY_BIRTH_DAY)) {
+
+                ps.setLong(1, from.toEpochDay());
+                ps.setLong(2, to.toEpochDay());
+                ps.setString(3, from.toString());
+                ps.setString(4, to.toString());
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        students.add(mapResultSetToStudent(rs));
+                    }
+                }
+                metrics.recordRowsRead(students.size());
+                return students;
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error finding students born between {} and {} in {}", from, to, shard, e);
+                throw new DatabaseException("Error finding students by birth date", e);
+            }
+        });
+    }
+
+    /**
+     * Finds students whose names match every word of the query, treating each word as a prefix
+     * @param query Free-text query, e.g. "Ива Пет"
+     * @param limit Maximum number of results to return
+     * @return Students ordered by relevance, best match first
+     * @throws DatabaseException if database operation fails
+     */
+    public List<Student> searchByName(String query, int limit) {
+        String matchExpression = toPrefixMatchExpression(query);
+        if (matchExpression.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return mergeByRank(shards.fanOut(shard -> searchByName(shard, query, matchExpression, limit)), limit);
+    }
+
+    private List<RankedRow<Student>> searchByName(DatabaseShard shard, String query, String matchExpression,
+                                                  int limit) {
+        return shard.getBulkhead().read(() -> {
+            List<RankedRow<Student>> students = new ArrayList<>();
+
+            try (Connection conn = metrics.getConnection(shard.getDataSource());
+                 PreparedStatement ps = conn.prepareStatement(SEARCH_STUDENTS_BY_NAME)) {
+
+                ps.setString(1, matchExpression);
+                ps.setInt(2, limit);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        students.add(new RankedRow<>(mapResultSetToStudent(rs), rs.getDouble(7)));
+                    }
+                }
+                metrics.recordRowsRead(students.size());
+                return students;
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error searching students by name {} in {}", query, shard, e);
+                throw new DatabaseException("Error searching students by name", e);
+            }
+        });
+    }
+
+    /**
+     * Retrieves only the requested properties of all students
+     * @param fields Properties to read
+     * @return Students with only the requested properties set, in ID order
+     * @throws DatabaseException if database operation fails
+     */
+    public List<Student> findAllProjected(Set<StudentField> fields) {
+        return concat(shards.fanOut(shard -> findAllProjected(shard, fields)));
+    }
+
+    private List<Student> findAllProjected(DatabaseShard shard, Set<StudentField> fields) {
+        return shard.getBulkhead().read(() -> {
+            List<Student> students = new ArrayList<>();
+            String sql = String.format(SELECT_PROJECTED_STUDENTS, projectedColumns(fields, ""));
+
+            try (Connection conn = metrics.getConnection(shard.getDataSource());
+                 PreparedStatement ps = conn.prepareStatement(sql);
+                 ResultSet rs = ps.executeQuery()) {
 
-            try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    students.add(mapResultSetToStudent(rs));
+                    students.add(mapProjectedRow(rs, fields));
                 }
+                metrics.recordRowsRead(students.size());
+                return students;
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error retrieving students with fields {} from {}", fields, shard, e);
+                throw new DatabaseException("Error retrieving all students", e);
             }
-            return students;
-        } catch (SQLException e) {
-            logger.error("Error finding students in group: {}", groupNumber, e);
-            throw new DatabaseException("Error finding students by group", e);
+        });
+    }
+
+    /**
+     * Name search that reads only the requested properties, see {@link #searchByName(String, int)}
+     * @param query Free-text query
+     * @param limit Maximum number of results to return
+     * @param fields Properties to read
+     * @return Students with only the requested properties set, best match first
+     * @throws DatabaseException if database operation fails
+     */
+    public List<Student> searchByNameProjected(String query, int limit, Set<StudentField> fields) {
+        String matchExpression = toPrefixMatchExpression(query);
+        if (matchExpression.isEmpty()) {
+            return new ArrayList<>();
         }
+        return mergeByRank(shards.fanOut(
+                shard -> searchByNameProjected(shard, query, matchExpression, limit, fields)), limit);
+    }
+
+    private List<RankedRow<Student>> searchByNameProjected(DatabaseShard shard, String query,
+                                                           String matchExpression, int limit,
+                                                           Set<StudentField> fields) {
+        return shard.getBulkhead().read(() -> {
+            List<RankedRow<Student>> students = new ArrayList<>();
+            String sql = String.format(SEARCH_PROJECTED_STUDENTS_BY_NAME, projectedColumns(fields, "s."));
+            int rankColumn = fields.size() + 1;
+
+            try (Connection conn = metrics.getConnection(shard.getDataSource());
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+
+                ps.setString(1, matchExpression);
+                ps.setInt(2, limit);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        students.add(new RankedRow<>(mapProjectedRow(rs, fields), rs.getDouble(rankColumn)));
+                    }
+                }
+                metrics.recordRowsRead(students.size());
+                return students;
+            } catch (SQLException e) {
+                metrics.recordFailure(e);
+                logger.error("Error searching students by name {} in {}", query, shard, e);
+                throw new DatabaseException("Error searching students by name", e);
+            }
+        });
     }
 
     /**
-     * Maps a ResultSet row to a Student object
+     * Joins per-shard results. Shards own ascending ID ranges, so results that are in ID order
+     * within each shard stay in ID order.
+     */
+    private <T> List<T> concat(List<List<T>> perShard) {
+        if (perShard.size() == 1) {
+            return perShard.get(0);
+        }
+        int size = 0;
+        for (List<T> rows : perShard) {
+            size += rows.size();
+        }
+        List<T> all = new ArrayList<>(size);
+        for (List<T> rows : perShard) {
+            all.addAll(rows);
+        }
+        return all;
+    }
+
+    /**
+     * Merges per-shard search hits into the overall best ones. Every shard ranks with its own
+     * BM25 statistics; students are spread evenly across shards, so the ranks are close enough to compare.
+     */
+    private <T> List<T> mergeByRank(List<List<RankedRow<T>>> perShard, int limit) {
+        List<RankedRow<T>> hits = concat(perShard);
+        if (perShard.size() > 1) {
+            hits = new ArrayList<>(hits);
+            hits.sort(Comparator.comparingDouble(RankedRow::getRank));
+        }
+        List<T> rows = new ArrayList<>(Math.min(limit, hits.size()));
+        for (RankedRow<T> hit : hits.subList(0, Math.min(limit, hits.size()))) {
+            rows.add(hit.getRow());
+        }
+        return rows;
+    }
+
+    /**
+     * Turns free text into an FTS5 expression where every word is a quoted prefix phrase of the tokens
+     * the index would produce for it, so that user input can never be interpreted as FTS5 query syntax.
+     * Words without tokens, such as "-", are dropped: FTS5 would reject or never match an empty phrase.
+     * @param query Free-text query
+     * @return FTS5 MATCH expression, empty if the query has no tokens
+     */
+    private String toPrefixMatchExpression(String query) {
+        StringJoiner expression = new StringJoiner(" ");
+        for (List<String> phrase : NameTokenizer.queryPhrases(query)) {
+            // Tokens are letters and digits only, so they need no escaping inside the quotes
+            expression.add('"' + String.join(" ", phrase) + "\"*");
+        }
+        return expression.toString();
+    }
+
+    private void readChunk(PreparedStatement ps, List<Long> chunk, Map<Long, Student> students)
+            throws SQLException {
+        int index = 1;
+        for (Long id : chunk) {
+            ps.setLong(index++, id);
+        }
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Student student = mapResultSetToStudent(rs);
+                students.put(student.getId(), student);
+            }
+        }
+    }
+
+    private String selectByIdsSql(int idCount) {
+        return String.format(SELECT_STUDENTS_BY_IDS, String.join(", ", Collections.nCopies(idCount, "?")));
+    }
+
+    /**
+     * Maps a ResultSet row to a Student object.
+     * Reads by column index, relying on the column order of {@link #STUDENT_COLUMNS};
+     * the birth date column holds epoch days, so no text is parsed.
      * @param rs ResultSet containing student data
      * @return Student object
      * @throws SQLException if database operation fails
      */
-    private Student mapResultSetToStudent(ResultSet rs) throws SQLException {
+    Student mapResultSetToStudent(ResultSet rs) throws SQLException {
+        Student student = new Student();
+        student.setId(rs.getLong(1));
+        student.setFirstName(rs.getString(2));
+        student.setLastName(rs.getString(3));
+        student.setMiddleName(rs.getString(4));
+        student.setBirthDate(LocalDate.ofEpochDay(rs.getLong(5)));
+        student.setGroupNumber(rs.getString(6));
+        return student;
+    }
+
+    /**
+     * Maps a row of a projected query, whose columns are the given fields in iteration order
+     * @param rs ResultSet positioned on the row
+     * @param fields Fields selected by the query
+     * @return Student with only the selected properties set
+     * @throws SQLException if database operation fails
+     */
+    private Student mapProjectedRow(ResultSet rs, Set<StudentField> fields) throws SQLException {
         Student student = new Student();
-        student.setId(rs.getLong("id"));
-        student.setFirstName(rs.getString("first_name"));
-        student.setLastName(rs.getString("last_name"));
-        student.setMiddleName(rs.getString("middle_name"));
-        student.setBirthDateFromString(rs.getString("birth_date"));
-        student.setGroupNumber(rs.getString("group_number"));
+        int column = 1;
+        for (StudentField field : fields) {
+            switch (field) {
+                case ID -> student.setId(rs.getLong(column));
+                case FIRST_NAME -> student.setFirstName(rs.getString(column));
+                case LAST_NAME -> student.setLastName(rs.getString(column));
+                case MIDDLE_NAME -> student.setMiddleName(rs.getString(column));
+                case BIRTH_DATE -> student.setBirthDate(LocalDate.ofEpochDay(rs.getLong(column)));
+                case GROUP_NUMBER -> student.setGroupNumber(rs.getString(column));
+            }
+            column++;
+        }
         return student;
     }
 
+    private String projectedColumns(Set<StudentField> fields, String tableAlias) {
+        StringJoiner columns = new StringJoiner(", ");
+        for (StudentField field : fields) {
+            // BIRTH_DAY only names columns of the students table, so it needs no alias
+            columns.add(field == StudentField.BIRTH_DATE ? BIRTH_DAY : tableAlias + field.getColumn());
+        }
+        return columns.toString();
+    }
+
+    /**
+     * Rolls back the open transaction, if any: a failed {@link DatabaseShard#commit} has already ended it
+     * @param conn Connection of the failed write
+     * @throws SQLException if database operation fails
+     */
+    private void rollbackIfOpen(Connection conn) throws SQLException {
+        if (!conn.getAutoCommit()) {
+            conn.rollback();
+        }
+    }
+
     /**
      * Sets student parameters in a PreparedStatement
      * @param ps PreparedStatement to set parameters in
@@ -232,5 +788,27 @@ public class StudentRepository {
         ps.setString(3, student.getMiddleName());
         ps.setString(4, student.getBirthDateAsString());
         ps.setString(5, student.getGroupNumber());
+        ps.setLong(6, student.getBirthDate().toEpochDay());
+    }
+
+    /**
+     * A search hit with its FTS5 rank, lower is better
+     */
+    private static final class RankedRow<T> {
+        private final T row;
+        private final double rank;
+
+        RankedRow(T row, double rank) {
+            this.row = row;
+            this.rank = rank;
+        }
+
+        T getRow() {
+            return row;
+        }
+
+        double getRank() {
+            return rank;
+        }
     }
-}
\ No newline at end of file
+}
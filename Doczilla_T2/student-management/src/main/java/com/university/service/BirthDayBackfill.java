@@ -0,0 +1,92 @@
+package com.university.service;
+
+import com.university.bulkhead.AdaptiveLimiter;
+import com.university.repository.MaintenanceRepository;
+import com.university.shard.DatabaseShard;
+import com.university.shard.DatabaseShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills the birth_day column for students written before it existed, without taking the database offline.
+ * Works through each shard in ID order in small batches; every batch is a short write transaction that
+ * queues in the shard's write bulkhead like any other write, and a run pauses as soon as foreground
+ * writes are waiting. Once a shard has no rows left it is never queried again.
+ */
+@Component
+public class BirthDayBackfill {
+    private static final Logger logger = LoggerFactory.getLogger(BirthDayBackfill.class);
+
+    private final MaintenanceRepository maintenanceRepository;
+    private final List<ShardProgress> progress = new ArrayList<>();
+    private final int batchSize;
+    private final Duration writeBudget;
+
+    public BirthDayBackfill(
+            MaintenanceRepository maintenanceRepository,
+            DatabaseShards shards,
+            @Value("${student.birth-day.backfill-batch-size}") int batchSize,
+            @Value("${student.maintenance.write-budget}") Duration writeBudget) {
+        this.maintenanceRepository = maintenanceRepository;
+        this.batchSize = batchSize;
+        this.writeBudget = writeBudget;
+        for (DatabaseShard shard : shards.all()) {
+            progress.add(new ShardProgress(shard));
+        }
+    }
+
+    // First run one interval after startup, out of the way of the snapshot load
+    @Scheduled(initialDelayString = "${student.birth-day.backfill-interval}",
+            fixedDelayString = "${student.birth-day.backfill-interval}")
+    public void backfill() {
+        for (ShardProgress shardProgress : progress) {
+            if (shardProgress.done) {
+                continue;
+            }
+            try {
+                backfill(shardProgress);
+            } catch (Exception e) {
+                logger.error("Backfilling birth days in {} failed, will retry on the next run", shardProgress.shard, e);
+            }
+        }
+    }
+
+    private void backfill(ShardProgress shardProgress) {
+        AdaptiveLimiter writeLimiter = shardProgress.shard.getBulkhead().getWriteLimiter();
+        while (writeLimiter.getWaiting() == 0) {
+            long lastId = maintenanceRepository.backfillBirthDays(
+                    shardProgress.shard, shardProgress.lastId, batchSize, writeBudget);
+            if (lastId == 0) {
+                shardProgress.done = true;
+                if (shardProgress.lastId > 0) {
+                    logger.info("Backfilled birth days in {} up to ID {}", shardProgress.shard, shardProgress.lastId);
+                }
+                return;
+            }
+            shardProgress.lastId = lastId;
+        }
+        logger.debug("Backfilling birth days in {} paused at ID {}, writes are waiting",
+                shardProgress.shard, shardProgress.lastId);
+    }
+
+    /**
+     * How far the backfill of one shard has got. Rows up to lastId have been processed, and rows inserted
+     * since startup get birth_day from the application or the V4 triggers, so only higher IDs remain.
+     */
+    private static final class ShardProgress {
+        private final DatabaseShard shard;
+        private long lastId;
+        private boolean done;
+
+        ShardProgress(DatabaseShard shard) {
+            this.shard = shard;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.university.service;
+
+import com.university.bulkhead.AdaptiveLimiter;
+import com.university.model.CheckpointResult;
+import com.university.model.MaintenanceRun;
+import com.university.model.MaintenanceStatus;
+import com.university.repository.MaintenanceRepository;
+import com.university.shard.DatabaseShard;
+import com.university.shard.DatabaseShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodic SQLite housekeeping, done for each shard in turn:
+ * - a passive WAL checkpoint whenever the WAL file has grown past a threshold, which never waits for locks;
+ * - in quiet periods only, tasks that need the write lock: truncating the WAL, refreshing planner
+ *   statistics and returning free pages to the file system with incremental vacuum.
+ * A period is quiet when the shard's bulkheads completed few operations since the previous check and no write is queued.
+ * Write-locking work is split into steps sized to hold the lock for about the write budget, each step
+ * queues in the write bulkhead like any other write, and stops as soon as foreground writes show up.
+ */
+@Component
+public class DatabaseMaintenance {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseMaintenance.class);
+
+    static final String WAL_CHECKPOINT = "walCheckpoint";
+    static final String WAL_TRUNCATE = "walTruncate";
+    static final String OPTIMIZE = "optimize";
+    static final String INCREMENTAL_VACUUM = "incrementalVacuum";
+
+    private final MaintenanceRepository maintenanceRepository;
+    private final List<ShardState> states = new ArrayList<>();
+    private final long quietThreshold;
+    private final Duration writeBudget;
+    private final long walCheckpointThresholdBytes;
+    private final Duration optimizeInterval;
+    private final int analysisLimit;
+    private final int vacuumMinFreePages;
+    private final int vacuumMaxStepPages;
+    private final Duration vacuumMaxDuration;
+
+    public DatabaseMaintenance(
+            MaintenanceRepository maintenanceRepository,
+            DatabaseShards shards,
+            @Value("${student.maintenance.quiet-threshold}") long quietThreshold,
+            @Value("${student.maintenance.write-budget}") Duration writeBudget,
+            @Value("${student.maintenance.wal-checkpoint-threshold}") DataSize walCheckpointThreshold,
+            @Value("${student.maintenance.optimize-interval}") Duration optimizeInterval,
+            @Value("${student.maintenance.analysis-limit}") int analysisLimit,
+            @Value("${student.maintenance.vacuum-min-free-pages}") int vacuumMinFreePages,
+            @Value("${student.maintenance.vacuum-max-step-pages}") int vacuumMaxStepPages,
+            @Value("${student.maintenance.vacuum-max-duration}") Duration vacuumMaxDuration) {
+        this.maintenanceRepository = maintenanceRepository;
+        this.quietThreshold = quietThreshold;
+        this.writeBudget = writeBudget;
+        this.walCheckpointThresholdBytes = walCheckpointThreshold.toBytes();
+        this.optimizeInterval = optimizeInterval;
+        this.analysisLimit = analysisLimit;
+        this.vacuumMinFreePages = vacuumMinFreePages;
+        this.vacuumMaxStepPages = vacuumMaxStepPages;
+        this.vacuumMaxDuration = vacuumMaxDuration;
+        for (DatabaseShard shard : shards.all()) {
+            states.add(new ShardState(shard, vacuumMaxStepPages));
+        }
+    }
+
+    @Scheduled(initialDelayString = "${student.maintenance.interval}",
+            fixedDelayString = "${student.maintenance.interval}")
+    public void runMaintenance() {
+        for (ShardState state : states) {
+            state.quiet = isQuiet(state);
+            try {
+                checkpointIfLarge(state);
+                if (state.quiet) {
+                    optimizeIfDue(state);
+                    vacuumIfFragmented(state);
+                }
+            } catch (Exception e) {
+                logger.error("Database maintenance of {} failed, will retry on the next run", state.shard, e);
+            } finally {
+                // Our own statements went through the bulkheads too and must not count as traffic
+                state.operationsAtLastCheck = completedOperations(state);
+            }
+        }
+    }
+
+    /**
+     * @return For every shard: WAL size, vacuum mode and the most recent run of every task
+     */
+    public List<MaintenanceStatus> getStatus() {
+        List<MaintenanceStatus> statuses = new ArrayList<>(states.size());
+        for (ShardState state : states) {
+            List<MaintenanceRun> runs = new ArrayList<>(state.lastRuns.values());
+            runs.sort((a, b) -> b.getFinishedAt().compareTo(a.getFinishedAt()));
+            statuses.add(new MaintenanceStatus(state.shard.getIndex(), walSizeBytes(state),
+                    maintenanceRepository.isIncrementalVacuumEnabled(state.shard), state.quiet, runs));
+        }
+        return statuses;
+    }
+
+    private boolean isQuiet(ShardState state) {
+        AdaptiveLimiter writeLimiter = state.shard.getBulkhead().getWriteLimiter();
+        long operations = completedOperations(state) - state.operationsAtLastCheck;
+        return operations <= quietThreshold && writeLimiter.getInFlight() == 0 && writeLimiter.getWaiting() == 0;
+    }
+
+    private void checkpointIfLarge(ShardState state) {
+        long walSize = walSizeBytes(state);
+        if (walSize < walCheckpointThresholdBytes) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        CheckpointResult passive = maintenanceRepository.checkpointPassive(state.shard);
+        record(state, WAL_CHECKPOINT, start, "PASSIVE: " + describe(passive) + ", WAL file " + walSize + " bytes");
+
+        // The WAL file never shrinks on its own; truncating is cheap once every frame has been copied
+        if (state.quiet && passive.isComplete()) {
+            start = System.nanoTime();
+            CheckpointResult truncate = maintenanceRepository.checkpointTruncate(state.shard, writeBudget);
+            record(state, WAL_TRUNCATE, start,
+                    "TRUNCATE: " + describe(truncate) + ", WAL file " + walSizeBytes(state) + " bytes");
+        }
+    }
+
+    private void optimizeIfDue(ShardState state) {
+        Instant now = Instant.now();
+        if (state.lastOptimized.plus(optimizeInterval).isAfter(now)) {
+            return;
+        }
+        long start = System.nanoTime();
+        boolean fullAnalyze = maintenanceRepository.optimize(state.shard, analysisLimit, writeBudget);
+        state.lastOptimized = now;
+        record(state, OPTIMIZE, start, fullAnalyze
+                ? "ANALYZE, analysis_limit " + analysisLimit
+                : "PRAGMA optimize, analysis_limit " + analysisLimit);
+    }
+
+    private void vacuumIfFragmented(ShardState state) {
+        DatabaseShard shard = state.shard;
+        int freePages = maintenanceRepository.countFreePages(shard);
+        if (freePages < vacuumMinFreePages || !maintenanceRepository.isIncrementalVacuumEnabled(shard)) {
+            return;
+        }
+        AdaptiveLimiter writeLimiter = shard.getBulkhead().getWriteLimiter();
+
+        long start = System.nanoTime();
+        long deadline = start + vacuumMaxDuration.toNanos();
+        long budgetNanos = writeBudget.toNanos();
+        int remaining = freePages;
+        int steps = 0;
+        String stoppedBy = "done";
+
+        while (remaining > 0) {
+            if (writeLimiter.getInFlight() > 0 || writeLimiter.getWaiting() > 0) {
+                stoppedBy = "foreground writes";
+                break;
+            }
+            if (System.nanoTime() >= deadline) {
+                stoppedBy = "time limit";
+                break;
+            }
+
+            long stepStart = System.nanoTime();
+            maintenanceRepository.incrementalVacuum(shard, Math.min(state.vacuumStepPages, remaining), writeBudget);
+            long stepNanos = System.nanoTime() - stepStart;
+            steps++;
+            // Keep each step's hold on the write lock close to the budget
+            if (stepNanos > budgetNanos) {
+                state.vacuumStepPages = Math.max(1, state.vacuumStepPages / 2);
+            } else if (stepNanos < budgetNanos / 2) {
+                state.vacuumStepPages = Math.min(vacuumMaxStepPages, state.vacuumStepPages * 2);
+            }
+            remaining = maintenanceRepository.countFreePages(shard);
+        }
+
+        record(state, INCREMENTAL_VACUUM, start, "released " + (freePages - remaining) + " of " + freePages
+                + " free pages in " + steps + " steps, stopped by " + stoppedBy);
+    }
+
+    private long completedOperations(ShardState state) {
+        return state.shard.getBulkhead().getReadLimiter().getCompleted()
+                + state.shard.getBulkhead().getWriteLimiter().getCompleted();
+    }
+
+    private long walSizeBytes(ShardState state) {
+        Path walFile = state.walFile;
+        try {
+            return Files.exists(walFile) ? Files.size(walFile) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private String describe(CheckpointResult result) {
+        return (result.isBusy() ? "busy, " : "") + result.getCheckpointedFrames() + " of "
+                + result.getWalFrames() + " frames checkpointed";
+    }
+
+    private void record(ShardState state, String task, long startNanos, String outcome) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        state.lastRuns.put(task, new MaintenanceRun(task, Instant.now(), millis, outcome));
+        logger.info("Database maintenance {} of {} took {} ms: {}", task, state.shard, millis, outcome);
+    }
+
+    /**
+     * What maintenance remembers about one shard between runs
+     */
+    private static final class ShardState {
+        private final DatabaseShard shard;
+        private final Path walFile;
+        private final Map<String, MaintenanceRun> lastRuns = new ConcurrentHashMap<>();
+        private long operationsAtLastCheck;
+        private volatile boolean quiet;
+        private Instant lastOptimized = Instant.MIN;
+        private int vacuumStepPages;
+
+        ShardState(DatabaseShard shard, int vacuumStepPages) {
+            this.shard = shard;
+            this.walFile = Path.of(shard.getPath() + "-wal");
+            this.vacuumStepPages = vacuumStepPages;
+        }
+    }
+}
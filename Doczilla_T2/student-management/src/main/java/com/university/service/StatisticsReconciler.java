@@ -0,0 +1,38 @@
+package com.university.service;
+
+import com.university.repository.StatisticsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically checks the trigger-maintained summary tables against the students table
+ * and repairs any drift. Migration V3 fills the tables, so the first run waits one interval
+ * instead of scanning every shard during startup.
+ */
+@Component
+public class StatisticsReconciler {
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsReconciler.class);
+
+    private final StatisticsRepository statisticsRepository;
+
+    public StatisticsReconciler(StatisticsRepository statisticsRepository) {
+        this.statisticsRepository = statisticsRepository;
+    }
+
+    @Scheduled(initialDelayString = "${student.statistics.reconcile-interval}",
+            fixedDelayString = "${student.statistics.reconcile-interval}")
+    public void reconcile() {
+        try {
+            int drift = statisticsRepository.reconcile();
+            if (drift > 0) {
+                logger.warn("Student statistics were out of sync in {} rows and have been rebuilt", drift);
+            } else {
+                logger.debug("Student statistics are in sync");
+            }
+        } catch (Exception e) {
+            logger.error("Failed to reconcile student statistics, will retry on the next run", e);
+        }
+    }
+}
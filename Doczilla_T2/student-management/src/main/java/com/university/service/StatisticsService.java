@@ -0,0 +1,77 @@
+package com.university.service;
+
+import com.university.model.AgeCount;
+import com.university.model.GroupCount;
+import com.university.model.StudentStatistics;
+import com.university.repository.StatisticsRepository;
+import com.university.snapshot.StudentSnapshot;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+@Timed("students.service")
+public class StatisticsService {
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsService.class);
+
+    private final StatisticsRepository statisticsRepository;
+    private final StudentSnapshot snapshot;
+
+    public StatisticsService(StatisticsRepository statisticsRepository, StudentSnapshot snapshot) {
+        this.statisticsRepository = statisticsRepository;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Builds dashboard statistics from the summary tables, or from the counts kept by the in-memory
+     * snapshot when it is serving; cost depends on the number of groups and birth dates, not on the number of students
+     * @return Total, per-group and per-age student counts
+     */
+    public StudentStatistics getStatistics() {
+        logger.debug("Retrieving student statistics");
+
+        List<GroupCount> groups = snapshot.findGroupCounts().orElseGet(statisticsRepository::findGroupCounts);
+        long total = groups.stream().mapToLong(GroupCount::getStudentCount).sum();
+
+        Map<LocalDate, Long> birthDates = snapshot.findBirthDateCounts()
+                .orElseGet(statisticsRepository::findBirthDateCounts);
+        return new StudentStatistics(total, groups, toAges(birthDates));
+    }
+
+    /**
+     * Retrieves the number of students in a group
+     * @param groupNumber Group number
+     * @return Group count, zero for unknown groups
+     */
+    public GroupCount getGroupCount(String groupNumber) {
+        logger.debug("Retrieving statistics for group: {}", groupNumber);
+
+        long count = snapshot.findGroupCount(groupNumber)
+                .orElseGet(() -> statisticsRepository.findGroupCount(groupNumber).orElse(0L));
+        return new GroupCount(groupNumber, count);
+    }
+
+    /**
+     * Converts birth date counts into counts of the students' ages today, the ages
+     * StudentService#getStudentsByAge selects by
+     * @param birthDateCounts Counts keyed by birth date
+     * @return Counts ordered by age, youngest first
+     */
+    private List<AgeCount> toAges(Map<LocalDate, Long> birthDateCounts) {
+        LocalDate today = LocalDate.now();
+        Map<Integer, Long> counts = new TreeMap<>();
+        birthDateCounts.forEach((birthDate, count) ->
+                counts.merge(Period.between(birthDate, today).getYears(), count, Long::sum));
+        List<AgeCount> ages = new ArrayList<>(counts.size());
+        counts.forEach((age, count) -> ages.add(new AgeCount(age, count)));
+        return ages;
+    }
+}
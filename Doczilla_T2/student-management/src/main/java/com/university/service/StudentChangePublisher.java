@@ -0,0 +1,41 @@
+package com.university.service;
+
+import com.university.feed.StudentBulkChangedEvent;
+import com.university.feed.StudentChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Publishes committed changes to the students table. Callers publish from the commit callbacks of
+ * StudentRepository, which run under the commit lock of the shard (see DatabaseShard#commit), so listeners
+ * (change feed, snapshot, table version) see the changes of each shard in commit order and every event
+ * carries the state its own transaction committed.
+ */
+@Component
+public class StudentChangePublisher {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public StudentChangePublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Publishes one committed change as a StudentChangedEvent
+     * @param change Committed change
+     */
+    public void publish(StudentChangedEvent change) {
+        eventPublisher.publishEvent(change);
+    }
+
+    /**
+     * Publishes the changes one set-based operation committed on a shard as a single StudentBulkChangedEvent
+     * @param changes Committed changes, one per student
+     */
+    public void publishAll(List<StudentChangedEvent> changes) {
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new StudentBulkChangedEvent(changes));
+        }
+    }
+}
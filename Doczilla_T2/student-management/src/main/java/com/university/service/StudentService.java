@@ -1,29 +1,57 @@
 package com.university.service;
 
 import com.university.exception.BusinessException;
+import com.university.exception.ServiceOverloadedException;
 import com.university.exception.StudentNotFoundException;
+import com.university.feed.StudentChangedEvent;
+import com.university.model.GroupOperationResult;
 import com.university.model.Student;
+import com.university.model.StudentBatchResult;
+import com.university.model.StudentField;
+import com.university.model.StudentProjection;
 import com.university.repository.StudentRepository;
+import com.university.snapshot.StudentSnapshot;
 import com.university.validation.StudentValidator;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
+@Timed("students.service")
 public class StudentService {
     private static final Logger logger = LoggerFactory.getLogger(StudentService.class);
+    private static final int MAX_SEARCH_LIMIT = 100;
+    private static final int MAX_BATCH_SIZE = 5000;
+    /** Open ends of birth date ranges; both fit the four-digit years of the text column */
+    private static final LocalDate EARLIEST_BIRTH_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate LATEST_BIRTH_DATE = LocalDate.of(9999, 12, 31);
 
     private final StudentRepository studentRepository;
     private final StudentValidator studentValidator;
+    private final StudentTableVersion tableVersion;
+    private final StudentSnapshot snapshot;
+    private final StudentChangePublisher changePublisher;
 
     @Autowired
-    public StudentService(StudentRepository studentRepository, StudentValidator studentValidator) {
+    public StudentService(StudentRepository studentRepository, StudentValidator studentValidator,
+                          StudentTableVersion tableVersion, StudentSnapshot snapshot,
+                          StudentChangePublisher changePublisher) {
         this.studentRepository = studentRepository;
         this.studentValidator = studentValidator;
+        this.tableVersion = tableVersion;
+        this.snapshot = snapshot;
+        this.changePublisher = changePublisher;
     }
 
     /**
@@ -39,14 +67,20 @@ public class StudentService {
 
         studentValidator.validateAge(student.getBirthDate());
 
+        Student savedStudent;
         try {
-            Student savedStudent = studentRepository.save(student);
-            logger.info("Successfully created student with ID: {}", savedStudent.getId());
-            return savedStudent;
+            savedStudent = studentRepository.save(student,
+                    saved -> changePublisher.publish(StudentChangedEvent.created(saved)));
+        } catch (ServiceOverloadedException e) {
+            logger.warn("Rejected creating student, database is overloaded");
+            throw e;
         } catch (Exception e) {
             logger.error("Error creating student: {}", student, e);
             throw new BusinessException("Failed to create student", e);
         }
+
+        logger.info("Successfully created student with ID: {}", savedStudent.getId());
+        return savedStudent;
     }
 
     /**
@@ -65,6 +99,40 @@ public class StudentService {
                 });
     }
 
+    /**
+     * Retrieves several students by ID in one repository call
+     * @param ids Student IDs; duplicates are resolved once
+     * @return Found students in request order, plus the IDs that do not exist
+     * @throws BusinessException if the ID list is empty, too long or contains null
+     */
+    public StudentBatchResult getStudentsByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new BusinessException("At least one student ID must be provided");
+        }
+        if (ids.contains(null)) {
+            throw new BusinessException("Student IDs cannot be null");
+        }
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinctIds.size() > MAX_BATCH_SIZE) {
+            throw new BusinessException("At most " + MAX_BATCH_SIZE + " student IDs can be requested at once");
+        }
+        logger.debug("Retrieving {} students by ID", distinctIds.size());
+
+        Map<Long, Student> found = studentRepository.findAllByIds(distinctIds);
+        List<Student> students = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : distinctIds) {
+            Student student = found.get(id);
+            if (student != null) {
+                students.add(student);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        logger.debug("Found {} students, {} missing", students.size(), missingIds.size());
+        return new StudentBatchResult(students, missingIds);
+    }
+
     /**
      * Updates an existing student
      * @param id Student ID
@@ -83,13 +151,18 @@ public class StudentService {
         updateStudentFields(existingStudent, studentDetails);
 
         try {
-            studentRepository.update(existingStudent);
-            logger.info("Successfully updated student with ID: {}", id);
-            return existingStudent;
+            studentRepository.update(existingStudent,
+                    updated -> changePublisher.publish(StudentChangedEvent.updated(updated)));
+        } catch (ServiceOverloadedException e) {
+            logger.warn("Rejected updating student with ID: {}, database is overloaded", id);
+            throw e;
         } catch (Exception e) {
             logger.error("Error updating student with ID: {}", id, e);
             throw new BusinessException("Failed to update student", e);
         }
+
+        logger.info("Successfully updated student with ID: {}", id);
+        return existingStudent;
     }
 
     /**
@@ -101,7 +174,7 @@ public class StudentService {
         logger.info("Deleting student with ID: {}", id);
 
         // Check if student exists
-        if (!studentRepository.deleteById(id)) {
+        if (!studentRepository.deleteById(id, () -> changePublisher.publish(StudentChangedEvent.deleted(id)))) {
             logger.warn("Student not found with ID: {}", id);
             throw new StudentNotFoundException("Student not found with ID: " + id);
         }
@@ -109,6 +182,119 @@ public class StudentService {
         logger.info("Successfully deleted student with ID: {}", id);
     }
 
+    /**
+     * Retrieves the students born within a date range, using the birth date index
+     * @param from Earliest birth date in ISO format, inclusive; null for no lower bound
+     * @param to Latest birth date in ISO format, inclusive; null for no upper bound
+     * @return Students born in the range, in ID order
+     * @throws BusinessException if neither bound is given, a date is malformed or the range is empty
+     */
+    public List<Student> getStudentsBornBetween(String from, String to) {
+        logger.debug("Retrieving students born between {} and {}", from, to);
+
+        if (from == null && to == null) {
+            throw new BusinessException("At least one of the birth date bounds must be provided");
+        }
+        return findBornBetween(from == null ? EARLIEST_BIRTH_DATE : parseDate(from),
+                to == null ? LATEST_BIRTH_DATE : parseDate(to));
+    }
+
+    /**
+     * Retrieves the students whose age today is within a range, as a birth date range scan
+     * @param minAge Lowest age, inclusive; null for no lower bound
+     * @param maxAge Highest age, inclusive; null for no upper bound
+     * @return Students in the age range, in ID order
+     * @throws BusinessException if neither bound is given, an age is negative or the range is empty
+     */
+    public List<Student> getStudentsByAge(Integer minAge, Integer maxAge) {
+        logger.debug("Retrieving students aged {} to {}", minAge, maxAge);
+
+        if (minAge == null && maxAge == null) {
+            throw new BusinessException("At least one of the age bounds must be provided");
+        }
+        if ((minAge != null && minAge < 0) || (maxAge != null && maxAge < 0)) {
+            throw new BusinessException("Age cannot be negative");
+        }
+        LocalDate today = LocalDate.now();
+        // Someone is N years old from their N-th birthday up to the day before their (N + 1)-th
+        LocalDate to = minAge == null ? LATEST_BIRTH_DATE : today.minusYears(minAge);
+        LocalDate from = maxAge == null ? EARLIEST_BIRTH_DATE : today.minusYears(maxAge + 1L).plusDays(1);
+        return findBornBetween(from, to);
+    }
+
+    /**
+     * Moves every student of a group to another group with one set-based update instead of one update per student
+     * @param groupNumber Current group number
+     * @param targetGroupNumber New group number
+     * @return Number of students moved, zero for unknown groups
+     * @throws BusinessException if a group number is invalid or both are the same
+     */
+    public GroupOperationResult transferGroup(String groupNumber, String targetGroupNumber) {
+        logger.info("Transferring group {} to {}", groupNumber, targetGroupNumber);
+
+        requireGroupNumber(groupNumber);
+        studentValidator.validateGroupNumber(targetGroupNumber);
+        if (groupNumber.equals(targetGroupNumber)) {
+            throw new BusinessException("Target group must differ from the current group");
+        }
+
+        List<Student> transferred;
+        try {
+            transferred = studentRepository.transferGroup(groupNumber, targetGroupNumber, this::publishUpdated);
+        } catch (ServiceOverloadedException e) {
+            logger.warn("Rejected transferring group {}, database is overloaded", groupNumber);
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error transferring group {} to {}", groupNumber, targetGroupNumber, e);
+            throw new BusinessException("Failed to transfer group", e);
+        }
+
+        logger.info("Transferred {} students from group {} to {}", transferred.size(), groupNumber, targetGroupNumber);
+        return new GroupOperationResult(groupNumber, transferred.size());
+    }
+
+    /**
+     * Deletes every student of a group with one set-based delete instead of one delete per student
+     * @param groupNumber Group number
+     * @return Number of students deleted, zero for unknown groups
+     * @throws BusinessException if the group number is empty
+     */
+    public GroupOperationResult expelGroup(String groupNumber) {
+        logger.info("Expelling group {}", groupNumber);
+
+        requireGroupNumber(groupNumber);
+
+        List<Long> expelled;
+        try {
+            expelled = studentRepository.deleteByGroup(groupNumber, this::publishDeleted);
+        } catch (ServiceOverloadedException e) {
+            logger.warn("Rejected expelling group {}, database is overloaded", groupNumber);
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error expelling group {}", groupNumber, e);
+            throw new BusinessException("Failed to expel group", e);
+        }
+
+        logger.info("Expelled {} students from group {}", expelled.size(), groupNumber);
+        return new GroupOperationResult(groupNumber, expelled.size());
+    }
+
+    private void publishUpdated(List<Student> students) {
+        List<StudentChangedEvent> changes = new ArrayList<>(students.size());
+        for (Student student : students) {
+            changes.add(StudentChangedEvent.updated(student));
+        }
+        changePublisher.publishAll(changes);
+    }
+
+    private void publishDeleted(List<Long> ids) {
+        List<StudentChangedEvent> changes = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            changes.add(StudentChangedEvent.deleted(id));
+        }
+        changePublisher.publishAll(changes);
+    }
+
     /**
      * Retrieves all students
      * @return List of all students
@@ -116,11 +302,155 @@ public class StudentService {
     public List<Student> getAllStudents() {
         logger.debug("Retrieving all students");
 
-        List<Student> students = studentRepository.findAll();
+        List<Student> students = snapshot.findAll().orElseGet(studentRepository::findAll);
         logger.debug("Found {} students", students.size());
         return students;
     }
 
+    /**
+     * Retrieves only the requested properties of all students
+     * @param fields Comma-separated property names, e.g. "id,firstName,lastName"
+     * @return All students reduced to the requested properties, in ID order
+     * @throws BusinessException if a field name is unknown
+     */
+    public StudentProjection getAllStudents(String fields) {
+        logger.debug("Retrieving all students with fields: {}", fields);
+
+        Set<StudentField> parsedFields = parseFields(fields);
+        List<Student> students = snapshot.findAllProjected(parsedFields)
+                .orElseGet(() -> studentRepository.findAllProjected(parsedFields));
+        logger.debug("Found {} students", students.size());
+        return new StudentProjection(parsedFields, students);
+    }
+
+    /**
+     * Retrieves the students of one group
+     * @param groupNumber Group number
+     * @return Students of the group in ID order, empty for unknown groups
+     * @throws BusinessException if the group number is empty
+     */
+    public List<Student> getStudentsByGroup(String groupNumber) {
+        logger.debug("Retrieving students in group: {}", groupNumber);
+
+        requireGroupNumber(groupNumber);
+        List<Student> students = snapshot.findByGroup(groupNumber)
+                .orElseGet(() -> studentRepository.findByGroup(groupNumber));
+        logger.debug("Found {} students in group {}", students.size(), groupNumber);
+        return students;
+    }
+
+    /**
+     * Retrieves only the requested properties of the students of one group
+     * @param groupNumber Group number
+     * @param fields Comma-separated property names, e.g. "id,firstName,lastName"
+     * @return Students of the group reduced to the requested properties, in ID order
+     * @throws BusinessException if the group number is empty or a field name is unknown
+     */
+    public StudentProjection getStudentsByGroup(String groupNumber, String fields) {
+        Set<StudentField> parsedFields = parseFields(fields);
+        // A group is small; the serializer writes only the requested properties of the full rows
+        return new StudentProjection(parsedFields, getStudentsByGroup(groupNumber));
+    }
+
+    /**
+     * Returns the current version of the student data; it changes after every create, update and delete.
+     * Read it before reading the data, so a concurrent change can only make the version look older.
+     * @return Opaque version string
+     */
+    public String getDataVersion() {
+        return tableVersion.current();
+    }
+
+    /**
+     * Searches students by first, last or middle name prefixes
+     * @param query Words to look for, each matched as a name prefix
+     * @param limit Maximum number of results
+     * @return Matching students, most relevant first
+     * @throws BusinessException if the query or limit is invalid
+     */
+    public List<Student> searchStudents(String query, int limit) {
+        logger.debug("Searching students by name: {}", query);
+
+        validateSearch(query, limit);
+        List<Student> students = snapshot.searchByName(query, limit)
+                .orElseGet(() -> studentRepository.searchByName(query, limit));
+        logger.debug("Found {} students matching '{}'", students.size(), query);
+        return students;
+    }
+
+    /**
+     * Searches students by name, returning only the requested properties
+     * @param query Words to look for, each matched as a name prefix
+     * @param limit Maximum number of results
+     * @param fields Comma-separated property names
+     * @return Matching students reduced to the requested properties, most relevant first
+     * @throws BusinessException if the query, limit or a field name is invalid
+     */
+    public StudentProjection searchStudents(String query, int limit, String fields) {
+        logger.debug("Searching students by name: {} with fields: {}", query, fields);
+
+        validateSearch(query, limit);
+        Set<StudentField> parsedFields = parseFields(fields);
+        List<Student> students = snapshot.searchByNameProjected(query, limit, parsedFields)
+                .orElseGet(() -> studentRepository.searchByNameProjected(query, limit, parsedFields));
+        logger.debug("Found {} students matching '{}'", students.size(), query);
+        return new StudentProjection(parsedFields, students);
+    }
+
+    /**
+     * Parses a sparse fieldset, keeping the order in which fields are declared on Student
+     * @param fields Comma-separated property names
+     * @return Requested fields
+     * @throws BusinessException if the list is empty or a name is unknown
+     */
+    private Set<StudentField> parseFields(String fields) {
+        Set<StudentField> parsed = EnumSet.noneOf(StudentField.class);
+        for (String name : fields.split(",")) {
+            if (name.isBlank()) {
+                continue;
+            }
+            parsed.add(StudentField.fromProperty(name.trim())
+                    .orElseThrow(() -> new BusinessException("Unknown student field: " + name.trim())));
+        }
+        if (parsed.isEmpty()) {
+            throw new BusinessException("At least one field must be requested");
+        }
+        return parsed;
+    }
+
+    private List<Student> findBornBetween(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BusinessException("The lower bound of the range must not be after the upper bound");
+        }
+        List<Student> students = snapshot.findByBirthDateBetween(from, to)
+                .orElseGet(() -> studentRepository.findByBirthDateBetween(from, to));
+        logger.debug("Found {} students born between {} and {}", students.size(), from, to);
+        return students;
+    }
+
+    private LocalDate parseDate(String date) {
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("Invalid date, expected YYYY-MM-DD: " + date);
+        }
+    }
+
+    private void requireGroupNumber(String groupNumber) {
+        if (groupNumber == null || groupNumber.trim().isEmpty()) {
+            throw new BusinessException("Group number cannot be empty");
+        }
+    }
+
+    private void validateSearch(String query, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new BusinessException("Search query cannot be empty");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new BusinessException("Search limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+    }
+
     /**
      * Updates the fields of an existing student with new data
      * @param existingStudent Student to update
@@ -133,4 +463,4 @@ public class StudentService {
         existingStudent.setBirthDate(newData.getBirthDate());
         existingStudent.setGroupNumber(newData.getGroupNumber());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package com.university.service;
+
+import com.university.feed.StudentBulkChangedEvent;
+import com.university.feed.StudentChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory version of the students table, bumped after every committed change.
+ * The start timestamp is part of the version so tags issued before a restart never match again.
+ */
+@Component
+public class StudentTableVersion {
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong counter = new AtomicLong();
+
+    /**
+     * Marks the table as changed
+     */
+    public void increment() {
+        counter.incrementAndGet();
+    }
+
+    @EventListener
+    public void onStudentChanged(StudentChangedEvent event) {
+        increment();
+    }
+
+    @EventListener
+    public void onStudentsChanged(StudentBulkChangedEvent event) {
+        increment();
+    }
+
+    /**
+     * @return Opaque version string that changes whenever the table changes
+     */
+    public String current() {
+        return epoch + "-" + counter.get();
+    }
+}
@@ -0,0 +1,78 @@
+package com.university.shard;
+
+import com.university.bulkhead.DatabaseBulkhead;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One SQLite file holding the students whose IDs fall into its range, see {@link DatabaseShards}
+ */
+public class DatabaseShard {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseShard.class);
+
+    private final int index;
+    private final Path path;
+    private final DataSource dataSource;
+    private final DatabaseBulkhead bulkhead;
+    private final Lock commitLock = new ReentrantLock();
+
+    public DatabaseShard(int index, Path path, DataSource dataSource, DatabaseBulkhead bulkhead) {
+        this.index = index;
+        this.path = path;
+        this.dataSource = dataSource;
+        this.bulkhead = bulkhead;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public DatabaseBulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    /**
+     * Commits a write transaction and runs an action before any other transaction of this process can commit
+     * to the shard, so the actions run in commit order. A transaction only gets here while it holds SQLite's
+     * write lock, which serializes writers anyway; the lock is contended only for the duration of an action.
+     * The connection is left in auto-commit mode: sqlite-jdbc's commit() begins the next transaction right
+     * away, which would wait for the write lock while holding this lock and so block the next writer's commit.
+     * @param conn Connection with the transaction to commit
+     * @param afterCommit In-memory work such as publishing the change; it must not touch the database
+     * @throws SQLException if the commit fails, in which case the action does not run
+     */
+    public void commit(Connection conn, Runnable afterCommit) throws SQLException {
+        commitLock.lock();
+        try {
+            conn.setAutoCommit(true);
+            try {
+                afterCommit.run();
+            } catch (RuntimeException e) {
+                // The change is durable; failing the caller now would report a write that did happen as lost
+                logger.error("Committed a change to {} but could not complete its follow-up", this, e);
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "shard " + index;
+    }
+}
@@ -0,0 +1,147 @@
+package com.university.shard;
+
+import com.university.bulkhead.AdaptiveLimiter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Students partitioned across SQLite files by ID range: shard N owns IDs from N * 2^40 + 1 to (N + 1) * 2^40.
+ * Each shard's AUTOINCREMENT sequence starts at the bottom of its range, so IDs stay unique without
+ * coordination and the shard of a student never depends on the number of shards. Shard 0 is the
+ * original database, so switching sharding on or adding shards never moves existing rows.
+ * New students go to the least busy shard; queries that are not by ID fan out to every shard in parallel.
+ */
+public class DatabaseShards {
+    /**
+     * Width of each shard's ID range. Leaves 13 bits for the shard index below 2^53,
+     * so every ID stays exactly representable as a JavaScript number.
+     */
+    public static final int ID_RANGE_BITS = 40;
+    public static final int MAX_SHARDS = 1 << (53 - ID_RANGE_BITS);
+
+    private final List<DatabaseShard> shards;
+    private final Executor executor;
+    private final AtomicInteger nextInsert = new AtomicInteger();
+
+    public DatabaseShards(List<DatabaseShard> shards, Executor executor) {
+        if (shards.isEmpty() || shards.size() > MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + MAX_SHARDS
+                    + ", got " + shards.size());
+        }
+        this.shards = List.copyOf(shards);
+        this.executor = executor;
+    }
+
+    /**
+     * @param index Shard index
+     * @return Largest ID below the shard's range, which its AUTOINCREMENT sequence starts from
+     */
+    public static long idRangeStart(int index) {
+        return (long) index << ID_RANGE_BITS;
+    }
+
+    /**
+     * @param id Student ID
+     * @return Index of the shard whose range contains the ID
+     */
+    public static int shardIndexOf(long id) {
+        return id < 1 ? -1 : (int) ((id - 1) >>> ID_RANGE_BITS);
+    }
+
+    public List<DatabaseShard> all() {
+        return shards;
+    }
+
+    public boolean isSharded() {
+        return shards.size() > 1;
+    }
+
+    /**
+     * @param id Student ID
+     * @return Shard that owns the ID, empty if the ID belongs to no configured shard
+     */
+    public Optional<DatabaseShard> forId(long id) {
+        int index = shardIndexOf(id);
+        return index >= 0 && index < shards.size() ? Optional.of(shards.get(index)) : Optional.empty();
+    }
+
+    /**
+     * Picks the shard for a new student: the one with the fewest writes in flight or queued,
+     * starting the scan at the next shard in turn so ties are spread evenly
+     * @return Shard to insert into
+     */
+    public DatabaseShard forInsert() {
+        int size = shards.size();
+        if (size == 1) {
+            return shards.get(0);
+        }
+        int start = Math.floorMod(nextInsert.getAndIncrement(), size);
+        DatabaseShard best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            DatabaseShard shard = shards.get((start + i) % size);
+            AdaptiveLimiter writes = shard.getBulkhead().getWriteLimiter();
+            int load = writes.getInFlight() + writes.getWaiting();
+            if (load < bestLoad) {
+                best = shard;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Runs a query against every shard, in parallel when there is more than one
+     * @param query Query to run against one shard
+     * @return Per-shard results in shard order, which is also ID order
+     */
+    public <T> List<T> fanOut(Function<DatabaseShard, T> query) {
+        return fanOut(shards, query);
+    }
+
+    /**
+     * Runs a query against the given shards, in parallel when there is more than one.
+     * The calling thread queries the last shard itself instead of waiting idle.
+     * @param targets Shards to query
+     * @param query Query to run against one shard
+     * @return Per-shard results in the order of targets
+     * @throws RuntimeException the first failure of any shard query, unwrapped
+     */
+    public <T> List<T> fanOut(Collection<DatabaseShard> targets, Function<DatabaseShard, T> query) {
+        List<DatabaseShard> order = new ArrayList<>(targets);
+        if (order.isEmpty()) {
+            return List.of();
+        }
+        if (order.size() == 1) {
+            return List.of(query.apply(order.get(0)));
+        }
+
+        List<CompletableFuture<T>> futures = new ArrayList<>(order.size());
+        for (int i = 0; i < order.size() - 1; i++) {
+            DatabaseShard shard = order.get(i);
+            futures.add(CompletableFuture.supplyAsync(() -> query.apply(shard), executor));
+        }
+        futures.add(CompletableFuture.completedFuture(query.apply(order.get(order.size() - 1))));
+
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+}
@@ -0,0 +1,673 @@
+package com.university.snapshot;
+
+import com.university.model.GroupCount;
+import com.university.model.Student;
+import com.university.model.StudentField;
+import com.university.repository.NameTokenizer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+
+/**
+ * Column-oriented copy of the students table. IDs and birth dates (as epoch days) are primitive arrays,
+ * group numbers are dictionary-encoded as int codes, and equal names share one String instance.
+ * Per-group and per-birth-date counts are kept up to date on every change, and a sorted index of name
+ * tokens answers prefix searches.
+ * Rows are held in ascending ID order, the order of every list query, except that a change never shifts
+ * the arrays: a student that does not fit the order is appended and found through a map, and a deleted
+ * row is only marked. Queries merge the appended rows back into ID order, and the columns are compacted
+ * once appended and deleted rows add up to an eighth of the table.
+ * Not thread-safe: StudentSnapshot guards it with a read-write lock.
+ */
+final class StudentColumns {
+    private static final int INITIAL_CAPACITY = 1024;
+    /** Group code of a deleted row */
+    private static final int REMOVED = -1;
+
+    /** BM25 parameters and IDF floor used by the FTS5 bm25() function */
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+    private static final double MIN_IDF = 1e-6;
+
+    private long[] ids;
+    private String[] firstNames;
+    private String[] lastNames;
+    private String[] middleNames;
+    private int[] birthDays;
+    private int[] groupCodes;
+    /** Number of name tokens in each row, the BM25 document length */
+    private short[] tokenCounts;
+    /** Slots in use, including deleted rows */
+    private int size;
+    /** Slots below this one are in ascending ID order */
+    private int sorted;
+    /** Rows that are not deleted */
+    private int live;
+    /** Slots from sorted to size, by ID */
+    private final Map<Long, Integer> appended = new HashMap<>();
+
+    private final List<String> groupNumbers = new ArrayList<>();
+    private final Map<String, Integer> groupCodesByNumber = new HashMap<>();
+    private int[] groupSizes = new int[16];
+    /** Keyed by birth date as epoch day */
+    private final Map<Integer, Integer> birthDaySizes = new HashMap<>();
+
+    private final Map<String, String> names = new HashMap<>();
+    private final TreeMap<String, Postings> tokens = new TreeMap<>();
+    private long totalTokens;
+
+    private StudentColumns(int capacity) {
+        ids = new long[capacity];
+        firstNames = new String[capacity];
+        lastNames = new String[capacity];
+        middleNames = new String[capacity];
+        birthDays = new int[capacity];
+        groupCodes = new int[capacity];
+        tokenCounts = new short[capacity];
+    }
+
+    /**
+     * @param students Every student, ideally in ID order so that each one is appended
+     * @return Columns holding the given students
+     */
+    static StudentColumns of(Collection<Student> students) {
+        StudentColumns columns = new StudentColumns(Math.max(INITIAL_CAPACITY, students.size() + students.size() / 4));
+        for (Student student : students) {
+            columns.put(student);
+        }
+        return columns;
+    }
+
+    int size() {
+        return live;
+    }
+
+    /**
+     * Inserts a student or replaces the row with the same ID
+     * @param student Committed state of the student
+     */
+    void put(Student student) {
+        long id = student.getId();
+        int slot = slotOf(id);
+        if (slot >= 0 && groupCodes[slot] != REMOVED) {
+            release(slot);
+        } else {
+            if (slot < 0) {
+                slot = append(id);
+            }
+            live++;
+        }
+        ids[slot] = id;
+        firstNames[slot] = share(student.getFirstName());
+        lastNames[slot] = share(student.getLastName());
+        middleNames[slot] = share(student.getMiddleName());
+        birthDays[slot] = (int) student.getBirthDate().toEpochDay();
+        groupCodes[slot] = groupCode(student.getGroupNumber());
+        tokenCounts[slot] = (short) indexNames(slot, true);
+        groupSizes[groupCodes[slot]]++;
+        birthDaySizes.merge(birthDays[slot], 1, Integer::sum);
+        compactIfFragmented();
+    }
+
+    /**
+     * @param id Student ID
+     * @return true if the student was present
+     */
+    boolean remove(long id) {
+        int slot = slotOf(id);
+        if (slot < 0 || groupCodes[slot] == REMOVED) {
+            return false;
+        }
+        release(slot);
+        groupCodes[slot] = REMOVED;
+        firstNames[slot] = null;
+        lastNames[slot] = null;
+        middleNames[slot] = null;
+        live--;
+        compactIfFragmented();
+        return true;
+    }
+
+    /**
+     * @return Slots of all students in ID order
+     */
+    int[] slots() {
+        return slotsInIdOrder(live, slot -> true);
+    }
+
+    /**
+     * Copies the values of the given rows; plain array copies, so the caller's lock is held only briefly
+     * @param slots Row positions
+     * @return Values of the rows in the given order
+     */
+    Rows rows(int[] slots) {
+        Rows rows = new Rows(slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            int slot = slots[i];
+            rows.ids[i] = ids[slot];
+            rows.firstNames[i] = firstNames[slot];
+            rows.lastNames[i] = lastNames[slot];
+            rows.middleNames[i] = middleNames[slot];
+            rows.birthDays[i] = birthDays[slot];
+            rows.groupNumbers[i] = groupNumbers.get(groupCodes[slot]);
+        }
+        return rows;
+    }
+
+    /**
+     * @param groupNumber Group number
+     * @return Slots of the group's students in ID order
+     */
+    int[] slotsInGroup(String groupNumber) {
+        Integer code = groupCodesByNumber.get(groupNumber);
+        if (code == null || groupSizes[code] == 0) {
+            return new int[0];
+        }
+        int groupCode = code;
+        return slotsInIdOrder(groupSizes[groupCode], slot -> groupCodes[slot] == groupCode);
+    }
+
+    /**
+     * @param fromDay Earliest birth date as epoch day, inclusive
+     * @param toDay Latest birth date as epoch day, inclusive
+     * @return Slots of the students born in the range, in ID order
+     */
+    int[] slotsBornBetween(long fromDay, long toDay) {
+        return slotsInIdOrder(live, slot -> birthDays[slot] >= fromDay && birthDays[slot] <= toDay);
+    }
+
+    /**
+     * @return Non-empty groups with their sizes, ordered by group number like the group_stats query
+     */
+    List<GroupCount> groupCounts() {
+        List<GroupCount> counts = new ArrayList<>();
+        for (int code = 0; code < groupNumbers.size(); code++) {
+            if (groupSizes[code] > 0) {
+                counts.add(new GroupCount(groupNumbers.get(code), groupSizes[code]));
+            }
+        }
+        counts.sort(Comparator.comparing(GroupCount::getGroupNumber));
+        return counts;
+    }
+
+    /**
+     * @param groupNumber Group number
+     * @return Number of students in the group, zero for unknown groups
+     */
+    long groupCount(String groupNumber) {
+        Integer code = groupCodesByNumber.get(groupNumber);
+        return code == null ? 0 : groupSizes[code];
+    }
+
+    /**
+     * @return Student counts keyed by birth date
+     */
+    Map<LocalDate, Long> birthDateCounts() {
+        Map<LocalDate, Long> counts = new HashMap<>();
+        birthDaySizes.forEach((day, count) -> counts.put(LocalDate.ofEpochDay(day), count.longValue()));
+        return counts;
+    }
+
+    /**
+     * Finds the rows that match every phrase, ranked with the same BM25 formula FTS5 uses for
+     * students_fts: each phrase's IDF over the rows it matches, phrase frequency counted over all
+     * three name columns, and document length in name tokens. Ties go to the lower ID.
+     * @param phrases Folded query phrases, see {@link NameTokenizer#queryPhrases(String)}
+     * @param limit Maximum number of results
+     * @return Matching slots, best match first
+     */
+    int[] search(List<List<String>> phrases, int limit) {
+        if (live == 0 || phrases.isEmpty()) {
+            return new int[0];
+        }
+        TermHits[] hits = new TermHits[phrases.size()];
+        double[] idf = new double[hits.length];
+        int rarest = 0;
+        for (int t = 0; t < hits.length; t++) {
+            hits[t] = matchPhrase(phrases.get(t));
+            if (hits[t].count == 0) {
+                return new int[0];
+            }
+            idf[t] = Math.max(MIN_IDF, Math.log((live - hits[t].count + 0.5) / (hits[t].count + 0.5)));
+            if (hits[t].count < hits[rarest].count) {
+                rarest = t;
+            }
+        }
+
+        double averageTokens = (double) totalTokens / live;
+        List<ScoredSlot> matches = new ArrayList<>();
+        TermHits candidates = hits[rarest];
+        for (int i = 0; i < candidates.count; i++) {
+            long id = candidates.ids[i];
+            int slot = slotOf(id);
+            double lengthNorm = BM25_K1 * (1 - BM25_B + BM25_B * tokenCounts[slot] / averageTokens);
+            double score = 0;
+            boolean matchesAll = true;
+            for (int t = 0; t < hits.length && matchesAll; t++) {
+                int frequency = t == rarest ? candidates.frequencies[i] : hits[t].frequencyOf(id);
+                matchesAll = frequency > 0;
+                score += idf[t] * (frequency * (BM25_K1 + 1)) / (frequency + lengthNorm);
+            }
+            if (matchesAll) {
+                matches.add(new ScoredSlot(slot, score));
+            }
+        }
+
+        // FTS5 ranks by -score, ties go to the lower ID
+        matches.sort(Comparator.comparingDouble(ScoredSlot::getScore).reversed()
+                .thenComparingLong(match -> ids[match.getSlot()]));
+        int[] slots = new int[Math.min(limit, matches.size())];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = matches.get(i).getSlot();
+        }
+        return slots;
+    }
+
+    /**
+     * @param id Student ID
+     * @return Slot of the ID, which may hold a deleted row, or -1 if the ID has no slot
+     */
+    private int slotOf(long id) {
+        int slot = Arrays.binarySearch(ids, 0, sorted, id);
+        if (slot >= 0) {
+            return slot;
+        }
+        Integer appendedSlot = appended.get(id);
+        return appendedSlot != null ? appendedSlot : -1;
+    }
+
+    /**
+     * Takes a new slot at the end; it extends the ordered part when the ID is above every other
+     * @return Slot for the ID
+     */
+    private int append(long id) {
+        if (size == ids.length) {
+            grow();
+        }
+        int slot = size++;
+        ids[slot] = id;
+        if (sorted == slot && (slot == 0 || ids[slot - 1] < id)) {
+            sorted++;
+        } else {
+            appended.put(id, slot);
+        }
+        return slot;
+    }
+
+    /**
+     * @param capacity Upper bound on the number of matches
+     * @param matches Test for a slot holding a row that is not deleted
+     * @return Slots of the matching rows in ID order
+     */
+    private int[] slotsInIdOrder(int capacity, IntPredicate matches) {
+        int[] slots = new int[capacity];
+        int found = 0;
+        for (int slot = 0; slot < size && found < capacity; slot++) {
+            if (groupCodes[slot] != REMOVED && matches.test(slot)) {
+                slots[found++] = slot;
+            }
+        }
+        slots = found == capacity ? slots : Arrays.copyOf(slots, found);
+        int ordered = 0;
+        while (ordered < found && slots[ordered] < sorted) {
+            ordered++;
+        }
+        return ordered == found ? slots : merge(slots, ordered);
+    }
+
+    /**
+     * @param slots Slots in ID order up to the given index, appended slots after it
+     * @return The same slots, all in ID order
+     */
+    private int[] merge(int[] slots, int ordered) {
+        int[] tail = Arrays.stream(slots, ordered, slots.length).boxed()
+                .sorted(Comparator.comparingLong(slot -> ids[slot]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        int[] merged = new int[slots.length];
+        int head = 0;
+        int next = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (next == tail.length || (head < ordered && ids[slots[head]] < ids[tail[next]])) {
+                merged[i] = slots[head++];
+            } else {
+                merged[i] = tail[next++];
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Rewrites the columns in ID order without deleted rows once appended and deleted rows
+     * add up to an eighth of the table, so each change costs amortized O(log n). The shared names are
+     * collected again from the remaining rows, dropping the names no student has any more.
+     */
+    private void compactIfFragmented() {
+        int fragments = (size - sorted) + (size - live);
+        if (fragments <= Math.max(INITIAL_CAPACITY, live / 8)) {
+            return;
+        }
+        int[] order = slots();
+        int capacity = Math.max(INITIAL_CAPACITY, live + live / 4);
+        long[] compactIds = new long[capacity];
+        String[] compactFirstNames = new String[capacity];
+        String[] compactLastNames = new String[capacity];
+        String[] compactMiddleNames = new String[capacity];
+        int[] compactBirthDays = new int[capacity];
+        int[] compactGroupCodes = new int[capacity];
+        short[] compactTokenCounts = new short[capacity];
+        names.clear();
+        for (int i = 0; i < order.length; i++) {
+            int slot = order[i];
+            compactIds[i] = ids[slot];
+            compactFirstNames[i] = share(firstNames[slot]);
+            compactLastNames[i] = share(lastNames[slot]);
+            compactMiddleNames[i] = share(middleNames[slot]);
+            compactBirthDays[i] = birthDays[slot];
+            compactGroupCodes[i] = groupCodes[slot];
+            compactTokenCounts[i] = tokenCounts[slot];
+        }
+        ids = compactIds;
+        firstNames = compactFirstNames;
+        lastNames = compactLastNames;
+        middleNames = compactMiddleNames;
+        birthDays = compactBirthDays;
+        groupCodes = compactGroupCodes;
+        tokenCounts = compactTokenCounts;
+        size = order.length;
+        sorted = size;
+        appended.clear();
+    }
+
+    /**
+     * A single-token phrase is a plain prefix lookup. Longer phrases take the rows containing the first
+     * token and check them for the whole phrase: exact tokens followed by a prefix, adjacent in one name.
+     * @return Distinct IDs in ascending order with the number of phrase occurrences in each row
+     */
+    private TermHits matchPhrase(List<String> phrase) {
+        if (phrase.size() == 1) {
+            return matchPrefix(phrase.get(0));
+        }
+        Postings first = tokens.get(phrase.get(0));
+        if (first == null) {
+            return new TermHits(new long[0], new int[0], 0);
+        }
+        long[] ids = new long[first.size];
+        int[] frequencies = new int[first.size];
+        int count = 0;
+        for (int i = 0; i < first.size; i++) {
+            long id = first.ids[i];
+            if (i > 0 && first.ids[i - 1] == id) {
+                continue;
+            }
+            int slot = slotOf(id);
+            int frequency = phraseFrequency(phrase, firstNames[slot]) + phraseFrequency(phrase, lastNames[slot])
+                    + phraseFrequency(phrase, middleNames[slot]);
+            if (frequency > 0) {
+                ids[count] = id;
+                frequencies[count++] = frequency;
+            }
+        }
+        return new TermHits(ids, frequencies, count);
+    }
+
+    private int phraseFrequency(List<String> phrase, String name) {
+        List<String> nameTokens = NameTokenizer.tokenize(name);
+        int last = phrase.size() - 1;
+        int frequency = 0;
+        for (int start = 0; start + last < nameTokens.size(); start++) {
+            boolean matches = nameTokens.get(start + last).startsWith(phrase.get(last));
+            for (int i = 0; i < last && matches; i++) {
+                matches = nameTokens.get(start + i).equals(phrase.get(i));
+            }
+            if (matches) {
+                frequency++;
+            }
+        }
+        return frequency;
+    }
+
+    /**
+     * Collects every row containing a token that starts with the prefix
+     * @return Distinct IDs in ascending order with the number of matching tokens in each row
+     */
+    private TermHits matchPrefix(String prefix) {
+        Collection<Postings> matching = tokens.subMap(prefix, prefix + Character.MAX_VALUE).values();
+        int total = 0;
+        for (Postings postings : matching) {
+            total += postings.size;
+        }
+        long[] occurrences = new long[total];
+        int offset = 0;
+        for (Postings postings : matching) {
+            System.arraycopy(postings.ids, 0, occurrences, offset, postings.size);
+            offset += postings.size;
+        }
+        if (matching.size() > 1) {
+            Arrays.sort(occurrences);
+        }
+
+        // Run-length encode in place: equal IDs are adjacent once sorted
+        int[] frequencies = new int[total];
+        int count = 0;
+        for (int i = 0; i < total; i++) {
+            if (count > 0 && occurrences[count - 1] == occurrences[i]) {
+                frequencies[count - 1]++;
+            } else {
+                occurrences[count] = occurrences[i];
+                frequencies[count++] = 1;
+            }
+        }
+        return new TermHits(occurrences, frequencies, count);
+    }
+
+    /**
+     * Adds the row's name tokens to the index, or removes them
+     * @return Number of tokens in the row
+     */
+    private int indexNames(int slot, boolean add) {
+        int count = 0;
+        for (String name : new String[]{firstNames[slot], lastNames[slot], middleNames[slot]}) {
+            for (String token : NameTokenizer.tokenize(name)) {
+                if (add) {
+                    tokens.computeIfAbsent(token, t -> new Postings()).add(ids[slot]);
+                } else {
+                    Postings postings = tokens.get(token);
+                    if (postings != null && postings.remove(ids[slot]) && postings.size == 0) {
+                        tokens.remove(token);
+                    }
+                }
+                count++;
+            }
+        }
+        totalTokens += add ? count : -count;
+        return count;
+    }
+
+    /**
+     * Takes the row out of the counts and the name index before it is overwritten or closed
+     */
+    private void release(int slot) {
+        indexNames(slot, false);
+        groupSizes[groupCodes[slot]]--;
+        birthDaySizes.computeIfPresent(birthDays[slot], (day, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void grow() {
+        int capacity = ids.length + (ids.length >> 1);
+        ids = Arrays.copyOf(ids, capacity);
+        firstNames = Arrays.copyOf(firstNames, capacity);
+        lastNames = Arrays.copyOf(lastNames, capacity);
+        middleNames = Arrays.copyOf(middleNames, capacity);
+        birthDays = Arrays.copyOf(birthDays, capacity);
+        groupCodes = Arrays.copyOf(groupCodes, capacity);
+        tokenCounts = Arrays.copyOf(tokenCounts, capacity);
+    }
+
+    private int groupCode(String groupNumber) {
+        Integer code = groupCodesByNumber.get(groupNumber);
+        if (code == null) {
+            code = groupNumbers.size();
+            groupNumbers.add(groupNumber);
+            groupCodesByNumber.put(groupNumber, code);
+            if (code == groupSizes.length) {
+                groupSizes = Arrays.copyOf(groupSizes, code * 2);
+            }
+        }
+        return code;
+    }
+
+    /**
+     * Names repeat a lot, so every distinct value is stored once
+     */
+    private String share(String name) {
+        if (name == null) {
+            return null;
+        }
+        String shared = names.putIfAbsent(name, name);
+        return shared != null ? shared : name;
+    }
+
+    /**
+     * Values of some rows copied out of the columns, turned into Student objects without holding any lock
+     */
+    static final class Rows {
+        private final long[] ids;
+        private final String[] firstNames;
+        private final String[] lastNames;
+        private final String[] middleNames;
+        private final int[] birthDays;
+        private final String[] groupNumbers;
+
+        private Rows(int count) {
+            ids = new long[count];
+            firstNames = new String[count];
+            lastNames = new String[count];
+            middleNames = new String[count];
+            birthDays = new int[count];
+            groupNumbers = new String[count];
+        }
+
+        /**
+         * @return New Student objects with the rows' values
+         */
+        List<Student> students() {
+            List<Student> students = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                Student student = new Student();
+                student.setId(ids[i]);
+                student.setFirstName(firstNames[i]);
+                student.setLastName(lastNames[i]);
+                student.setMiddleName(middleNames[i]);
+                student.setBirthDate(LocalDate.ofEpochDay(birthDays[i]));
+                student.setGroupNumber(groupNumbers[i]);
+                students.add(student);
+            }
+            return students;
+        }
+
+        /**
+         * Same as the rows of StudentRepository's projected queries
+         * @param fields Properties to include
+         * @return New Student objects with only the requested properties set
+         */
+        List<Student> projected(Set<StudentField> fields) {
+            List<Student> students = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                Student student = new Student();
+                for (StudentField field : fields) {
+                    switch (field) {
+                        case ID -> student.setId(ids[i]);
+                        case FIRST_NAME -> student.setFirstName(firstNames[i]);
+                        case LAST_NAME -> student.setLastName(lastNames[i]);
+                        case MIDDLE_NAME -> student.setMiddleName(middleNames[i]);
+                        case BIRTH_DATE -> student.setBirthDate(LocalDate.ofEpochDay(birthDays[i]));
+                        case GROUP_NUMBER -> student.setGroupNumber(groupNumbers[i]);
+                    }
+                }
+                students.add(student);
+            }
+            return students;
+        }
+    }
+
+    /**
+     * IDs of the rows containing one token, in ascending order, repeated when a row contains the token more than once
+     */
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            // New students get the highest ID of their shard, so this is usually an append
+            int position = size;
+            if (size > 0 && ids[size - 1] > id) {
+                position = Arrays.binarySearch(ids, 0, size, id);
+                position = position >= 0 ? position : -position - 1;
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+    }
+
+    /**
+     * Rows matching one search term
+     */
+    private static final class TermHits {
+        private final long[] ids;
+        private final int[] frequencies;
+        private final int count;
+
+        TermHits(long[] ids, int[] frequencies, int count) {
+            this.ids = ids;
+            this.frequencies = frequencies;
+            this.count = count;
+        }
+
+        int frequencyOf(long id) {
+            int position = Arrays.binarySearch(ids, 0, count, id);
+            return position >= 0 ? frequencies[position] : 0;
+        }
+    }
+
+    private static final class ScoredSlot {
+        private final int slot;
+        private final double score;
+
+        ScoredSlot(int slot, double score) {
+            this.slot = slot;
+            this.score = score;
+        }
+
+        int getSlot() {
+            return slot;
+        }
+
+        double getScore() {
+            return score;
+        }
+    }
+}
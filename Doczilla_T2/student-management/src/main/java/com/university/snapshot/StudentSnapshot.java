@@ -0,0 +1,243 @@
+package com.university.snapshot;
+
+import com.university.feed.StudentBulkChangedEvent;
+import com.university.feed.StudentChangedEvent;
+import com.university.model.GroupCount;
+import com.university.model.Student;
+import com.university.model.StudentField;
+import com.university.repository.NameTokenizer;
+import com.university.repository.StudentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Optional in-memory replica of the students table (student.snapshot.enabled) for the read-heavy queries:
+ * list, group, birth date range, name search and counts. SQLite stays the source of truth. The replica is
+ * loaded at startup and again every reload interval, and is updated write-through with the committed state
+ * carried by every change event, which StudentChangePublisher delivers in commit order for each student.
+ * The replica is updated before the table version moves on, so an ETag never covers data it has not seen.
+ * Every query returns empty while the replica is disabled or not loaded yet, and callers then read the database.
+ */
+@Component
+public class StudentSnapshot implements MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(StudentSnapshot.class);
+
+    private final StudentRepository studentRepository;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /** Guarded by lock; null until the first load succeeds */
+    private StudentColumns columns;
+    /** Guarded by lock; changes seen while a reload reads the database, null when no reload runs */
+    private List<StudentChangedEvent> changedDuringReload;
+
+    public StudentSnapshot(StudentRepository studentRepository,
+                           @Value("${student.snapshot.enabled}") boolean enabled) {
+        this.studentRepository = studentRepository;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("students.snapshot.rows", this, snapshot -> snapshot.read(StudentColumns::size).orElse(0))
+                .description("Students held by the in-memory replica, 0 while it is not serving")
+                .register(registry);
+    }
+
+    /**
+     * Replaces the replica with a fresh copy of the database; also repairs any drift caused by
+     * writes that bypassed this instance
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${student.snapshot.reload-interval}")
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            changedDuringReload = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        StudentColumns loaded;
+        try {
+            loaded = StudentColumns.of(studentRepository.findAll());
+        } catch (Exception e) {
+            // Changes seen meanwhile have already been applied to the replica that stays in place
+            lock.writeLock().lock();
+            try {
+                changedDuringReload = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.error("Failed to load the student snapshot, will retry on the next run", e);
+            return;
+        }
+
+        // A change committed during the read may be missing from the copy, or be older than a later change
+        // the read did see: replaying every change in publication order leaves each student at its latest state
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            replayed = changedDuringReload.size();
+            apply(loaded, changedDuringReload);
+            changedDuringReload = null;
+            columns = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Loaded {} students into the snapshot in {} ms, replayed {} concurrent changes",
+                loaded.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), replayed);
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onStudentChanged(StudentChangedEvent event) {
+        applyChanges(List.of(event));
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onStudentsChanged(StudentBulkChangedEvent event) {
+        applyChanges(event.getChanges());
+    }
+
+    /**
+     * @return All students in ID order, empty if the replica is not serving
+     */
+    public Optional<List<Student>> findAll() {
+        return read(columns -> columns.rows(columns.slots())).map(StudentColumns.Rows::students);
+    }
+
+    /**
+     * @param fields Properties to include
+     * @return Students with only the requested properties set in ID order, empty if the replica is not serving
+     */
+    public Optional<List<Student>> findAllProjected(Set<StudentField> fields) {
+        return read(columns -> columns.rows(columns.slots())).map(rows -> rows.projected(fields));
+    }
+
+    /**
+     * @param groupNumber Group number
+     * @return The group's students in ID order, empty if the replica is not serving
+     */
+    public Optional<List<Student>> findByGroup(String groupNumber) {
+        return read(columns -> columns.rows(columns.slotsInGroup(groupNumber))).map(StudentColumns.Rows::students);
+    }
+
+    /**
+     * @param from Earliest birth date, inclusive
+     * @param to Latest birth date, inclusive
+     * @return Students born in the range in ID order, empty if the replica is not serving
+     */
+    public Optional<List<Student>> findByBirthDateBetween(LocalDate from, LocalDate to) {
+        return read(columns -> columns.rows(columns.slotsBornBetween(from.toEpochDay(), to.toEpochDay())))
+                .map(StudentColumns.Rows::students);
+    }
+
+    /**
+     * Same matching and BM25 ranking as StudentRepository#searchByName
+     * @param query Free-text query
+     * @param limit Maximum number of results
+     * @return Matching students, best match first; empty if the replica is not serving
+     */
+    public Optional<List<Student>> searchByName(String query, int limit) {
+        List<List<String>> phrases = NameTokenizer.queryPhrases(query);
+        return read(columns -> columns.rows(columns.search(phrases, limit))).map(StudentColumns.Rows::students);
+    }
+
+    /**
+     * @param query Free-text query
+     * @param limit Maximum number of results
+     * @param fields Properties to include
+     * @return Matching students with only the requested properties set, best match first; empty if the replica
+     *         is not serving
+     */
+    public Optional<List<Student>> searchByNameProjected(String query, int limit, Set<StudentField> fields) {
+        List<List<String>> phrases = NameTokenizer.queryPhrases(query);
+        return read(columns -> columns.rows(columns.search(phrases, limit))).map(rows -> rows.projected(fields));
+    }
+
+    /**
+     * @return Non-empty groups ordered by group number, empty if the replica is not serving
+     */
+    public Optional<List<GroupCount>> findGroupCounts() {
+        return read(StudentColumns::groupCounts);
+    }
+
+    /**
+     * @param groupNumber Group number
+     * @return Number of students in the group, empty if the replica is not serving
+     */
+    public Optional<Long> findGroupCount(String groupNumber) {
+        return read(columns -> columns.groupCount(groupNumber));
+    }
+
+    /**
+     * @return Student counts keyed by birth date, empty if the replica is not serving
+     */
+    public Optional<Map<LocalDate, Long>> findBirthDateCounts() {
+        return read(StudentColumns::birthDateCounts);
+    }
+
+    /**
+     * Runs a query under the read lock. Queries that return students copy the rows' values there
+     * and build the Student objects after the lock is released, so writers wait only for the copy.
+     */
+    private <T> Optional<T> read(Function<StudentColumns, T> query) {
+        lock.readLock().lock();
+        try {
+            return columns == null ? Optional.empty() : Optional.of(query.apply(columns));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void applyChanges(List<StudentChangedEvent> changes) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (columns != null) {
+                apply(columns, changes);
+            }
+            if (changedDuringReload != null) {
+                changedDuringReload.addAll(changes);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(StudentColumns target, List<StudentChangedEvent> changes) {
+        for (StudentChangedEvent change : changes) {
+            if (change.getStudent() != null) {
+                target.put(change.getStudent());
+            } else {
+                target.remove(change.getStudentId());
+            }
+        }
+    }
+}
@@ -46,7 +46,7 @@ public class StudentValidator {
         }
     }
 
-    private void validateGroupNumber(String groupNumber) {
+    public void validateGroupNumber(String groupNumber) {
         if (groupNumber == null || groupNumber.trim().isEmpty()) {
             throw new BusinessException("Group number cannot be empty");
         }
@@ -5,4 +5,5 @@ CREATE TABLE IF NOT EXISTS students (
     middle_name TEXT,
     birth_date TEXT NOT NULL,
     group_number TEXT NOT NULL
-);
\ No newline at end of file
+)
+@@
@@ -0,0 +1,36 @@
+-- Full-text index over student names, kept in sync with students by the triggers below
+CREATE VIRTUAL TABLE IF NOT EXISTS students_fts USING fts5(
+    first_name,
+    last_name,
+    middle_name,
+    content='students',
+    content_rowid='id',
+    tokenize='unicode61 remove_diacritics 2',
+    prefix='2 3'
+)
+@@
+
+CREATE TRIGGER IF NOT EXISTS students_fts_after_insert AFTER INSERT ON students BEGIN
+    INSERT INTO students_fts (rowid, first_name, last_name, middle_name)
+    VALUES (new.id, new.first_name, new.last_name, new.middle_name);
+END
+@@
+
+CREATE TRIGGER IF NOT EXISTS students_fts_after_delete AFTER DELETE ON students BEGIN
+    INSERT INTO students_fts (students_fts, rowid, first_name, last_name, middle_name)
+    VALUES ('delete', old.id, old.first_name, old.last_name, old.middle_name);
+END
+@@
+
+CREATE TRIGGER IF NOT EXISTS students_fts_after_update
+AFTER UPDATE OF first_name, last_name, middle_name ON students BEGIN
+    INSERT INTO students_fts (students_fts, rowid, first_name, last_name, middle_name)
+    VALUES ('delete', old.id, old.first_name, old.last_name, old.middle_name);
+    INSERT INTO students_fts (rowid, first_name, last_name, middle_name)
+    VALUES (new.id, new.first_name, new.last_name, new.middle_name);
+END
+@@
+
+-- Index students inserted before the search index existed
+INSERT INTO students_fts (students_fts) VALUES ('rebuild')
+@@
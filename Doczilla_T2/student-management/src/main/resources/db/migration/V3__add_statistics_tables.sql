@@ -0,0 +1,67 @@
+-- Aggregates for the statistics endpoints, maintained incrementally by the triggers below
+-- and corrected periodically by StatisticsReconciler
+CREATE TABLE IF NOT EXISTS group_stats (
+    group_number TEXT PRIMARY KEY,
+    student_count INTEGER NOT NULL
+) WITHOUT ROWID
+@@
+
+CREATE TABLE IF NOT EXISTS birth_year_stats (
+    birth_year INTEGER PRIMARY KEY,
+    student_count INTEGER NOT NULL
+)
+@@
+
+CREATE TRIGGER IF NOT EXISTS students_stats_after_insert AFTER INSERT ON students BEGIN
+    INSERT INTO group_stats (group_number, student_count) VALUES (new.group_number, 1)
+    ON CONFLICT (group_number) DO UPDATE SET student_count = student_count + 1;
+    INSERT INTO birth_year_stats (birth_year, student_count) VALUES (CAST(substr(new.birth_date, 1, 4) AS INTEGER), 1)
+    ON CONFLICT (birth_year) DO UPDATE SET student_count = student_count + 1;
+END
+@@
+
+CREATE TRIGGER IF NOT EXISTS students_stats_after_delete AFTER DELETE ON students BEGIN
+    UPDATE group_stats SET student_count = student_count - 1 WHERE group_number = old.group_number;
+    DELETE FROM group_stats WHERE group_number = old.group_number AND student_count <= 0;
+    UPDATE birth_year_stats SET student_count = student_count - 1
+    WHERE birth_year = CAST(substr(old.birth_date, 1, 4) AS INTEGER);
+    DELETE FROM birth_year_stats
+    WHERE birth_year = CAST(substr(old.birth_date, 1, 4) AS INTEGER) AND student_count <= 0;
+END
+@@
+
+CREATE TRIGGER IF NOT EXISTS students_stats_after_group_update AFTER UPDATE OF group_number ON students
+WHEN old.group_number IS NOT new.group_number BEGIN
+    UPDATE group_stats SET student_count = student_count - 1 WHERE group_number = old.group_number;
+    DELETE FROM group_stats WHERE group_number = old.group_number AND student_count <= 0;
+    INSERT INTO group_stats (group_number, student_count) VALUES (new.group_number, 1)
+    ON CONFLICT (group_number) DO UPDATE SET student_count = student_count + 1;
+END
+@@
+
+CREATE TRIGGER IF NOT EXISTS students_stats_after_birth_date_update AFTER UPDATE OF birth_date ON students
+WHEN substr(old.birth_date, 1, 4) IS NOT substr(new.birth_date, 1, 4) BEGIN
+    UPDATE birth_year_stats SET student_count = student_count - 1
+    WHERE birth_year = CAST(substr(old.birth_date, 1, 4) AS INTEGER);
+    DELETE FROM birth_year_stats
+    WHERE birth_year = CAST(substr(old.birth_date, 1, 4) AS INTEGER) AND student_count <= 0;
+    INSERT INTO birth_year_stats (birth_year, student_count) VALUES (CAST(substr(new.birth_date, 1, 4) AS INTEGER), 1)
+    ON CONFLICT (birth_year) DO UPDATE SET student_count = student_count + 1;
+END
+@@
+
+-- Count students inserted before the summary tables existed
+DELETE FROM group_stats
+@@
+
+INSERT INTO group_stats (group_number, student_count)
+SELECT group_number, COUNT(*) FROM students GROUP BY group_number
+@@
+
+DELETE FROM birth_year_stats
+@@
+
+INSERT INTO birth_year_stats (birth_year, student_count)
+SELECT CAST(substr(birth_date, 1, 4) AS INTEGER), COUNT(*) FROM students
+GROUP BY CAST(substr(birth_date, 1, 4) AS INTEGER)
+@@
@@ -0,0 +1,22 @@
+-- Birth date as days since 1970-01-01, indexed for birth date and age range queries.
+-- Adding a column does not rewrite the table; existing rows are filled in small batches by
+-- BirthDayBackfill after startup, and until then readers fall back to birth_date where birth_day is NULL
+ALTER TABLE students ADD COLUMN birth_day INTEGER
+@@
+
+CREATE INDEX IF NOT EXISTS idx_students_birth_day ON students (birth_day)
+@@
+
+-- Writers that only set birth_date, such as older instances still running during a rolling upgrade,
+-- get birth_day filled in by these triggers
+CREATE TRIGGER IF NOT EXISTS students_birth_day_after_insert AFTER INSERT ON students
+WHEN new.birth_day IS NULL BEGIN
+    UPDATE students SET birth_day = unixepoch(new.birth_date) / 86400 WHERE id = new.id;
+END
+@@
+
+CREATE TRIGGER IF NOT EXISTS students_birth_day_after_update AFTER UPDATE OF birth_date ON students
+WHEN new.birth_date IS NOT old.birth_date AND new.birth_day IS old.birth_day BEGIN
+    UPDATE students SET birth_day = unixepoch(new.birth_date) / 86400 WHERE id = new.id;
+END
+@@
@@ -0,0 +1,49 @@
+-- Student counts per birth date instead of per birth year, so the statistics can report exact ages
+-- as of today, the same ages GET /api/students/age selects by. There are at most a few thousand
+-- distinct birth dates, so the statistics still cost O(dates), not O(students).
+CREATE TABLE IF NOT EXISTS birth_date_stats (
+    birth_date TEXT PRIMARY KEY,
+    student_count INTEGER NOT NULL
+) WITHOUT ROWID
+@@
+
+DROP TRIGGER IF EXISTS students_stats_after_insert
+@@
+
+DROP TRIGGER IF EXISTS students_stats_after_delete
+@@
+
+DROP TRIGGER IF EXISTS students_stats_after_birth_date_update
+@@
+
+CREATE TRIGGER IF NOT EXISTS students_stats_after_insert AFTER INSERT ON students BEGIN
+    INSERT INTO group_stats (group_number, student_count) VALUES (new.group_number, 1)
+    ON CONFLICT (group_number) DO UPDATE SET student_count = student_count + 1;
+    INSERT INTO birth_date_stats (birth_date, student_count) VALUES (new.birth_date, 1)
+    ON CONFLICT (birth_date) DO UPDATE SET student_count = student_count + 1;
+END
+@@
+
+CREATE TRIGGER IF NOT EXISTS students_stats_after_delete AFTER DELETE ON students BEGIN
+    UPDATE group_stats SET student_count = student_count - 1 WHERE group_number = old.group_number;
+    DELETE FROM group_stats WHERE group_number = old.group_number AND student_count <= 0;
+    UPDATE birth_date_stats SET student_count = student_count - 1 WHERE birth_date = old.birth_date;
+    DELETE FROM birth_date_stats WHERE birth_date = old.birth_date AND student_count <= 0;
+END
+@@
+
+CREATE TRIGGER IF NOT EXISTS students_stats_after_birth_date_update AFTER UPDATE OF birth_date ON students
+WHEN old.birth_date IS NOT new.birth_date BEGIN
+    UPDATE birth_date_stats SET student_count = student_count - 1 WHERE birth_date = old.birth_date;
+    DELETE FROM birth_date_stats WHERE birth_date = old.birth_date AND student_count <= 0;
+    INSERT INTO birth_date_stats (birth_date, student_count) VALUES (new.birth_date, 1)
+    ON CONFLICT (birth_date) DO UPDATE SET student_count = student_count + 1;
+END
+@@
+
+DROP TABLE IF EXISTS birth_year_stats
+@@
+
+INSERT INTO birth_date_stats (birth_date, student_count)
+SELECT birth_date, COUNT(*) FROM students GROUP BY birth_date
+@@
@@ -15,6 +15,20 @@ const API = {
         }
     },
 
+    async searchStudents(query, limit = 50) {
+        try {
+            const response = await $.ajax({
+                url: `${this.BASE_URL}/search`,
+                method: 'GET',
+                data: { q: query, limit: limit }
+            });
+            return response;
+        } catch (error) {
+            this.handleError(error);
+            throw error;
+        }
+    },
+
     async getStudentById(id) {
         try {
             const response = await $.ajax({
@@ -70,8 +84,20 @@ const API = {
         }
     },
 
+    /**
+     * Opens the change feed; the browser reconnects and resumes from the last event on its own.
+     * handlers: { created(student), updated(student), deleted({id}), reset() }
+     */
+    subscribeToChanges(handlers) {
+        const source = new EventSource(`${this.BASE_URL}/changes`);
+        ['created', 'updated', 'deleted', 'reset'].forEach(type => {
+            source.addEventListener(type, event => handlers[type](JSON.parse(event.data)));
+        });
+        return source;
+    },
+
     handleError(error) {
         const message = error.responseJSON?.message || 'An error occurred';
         UI.showError(message);
     }
-};
\ No newline at end of file
+};
\ No newline at end of file
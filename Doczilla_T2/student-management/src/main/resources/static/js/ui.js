@@ -6,23 +6,86 @@ const UI = {
     submitBtn: $('#submitBtn'),
     cancelBtn: $('#cancelBtn'),
     formTitle: $('#formTitle'),
+    searchTimer: null,
+    SEARCH_DELAY_MS: 250,
+    changeFeed: null,
+    reloading: false,
+    pendingChanges: [],
 
     init() {
         this.form.on('submit', this.handleSubmit.bind(this));
         this.searchInput.on('input', this.handleSearch.bind(this));
         this.cancelBtn.on('click', this.resetForm.bind(this));
-        this.loadStudents();
+        if (window.EventSource) {
+            // The feed starts with a reset event, which triggers the initial load
+            this.changeFeed = API.subscribeToChanges({
+                created: student => this.applyChange('created', student),
+                updated: student => this.applyChange('updated', student),
+                deleted: data => this.applyChange('deleted', data),
+                reset: () => this.loadStudents()
+            });
+        } else {
+            this.loadStudents();
+        }
     },
 
     async loadStudents() {
+        const searchText = this.searchInput.val().trim();
+        this.reloading = true;
         try {
-            const students = await API.getAllStudents();
+            const students = this.isNameSearch(searchText)
+                ? await API.searchStudents(searchText)
+                : await API.getAllStudents();
             this.renderStudents(students);
+            this.studentTable.find('tr').each((i, row) => $(row).toggle(this.matchesFilter($(row))));
         } catch (error) {
             console.error('Error loading students:', error);
+        } finally {
+            this.reloading = false;
+            // Changes that arrived during the reload may or may not be in it; applying them again is harmless
+            this.pendingChanges.splice(0).forEach(([type, data]) => this.applyChange(type, data));
         }
     },
 
+    // Names hold only letters, hyphens and spaces (see StudentValidator), so text with a digit is matched
+    // against the rows of the full list instead: group number, birth date and ID, as the search box always did
+    isNameSearch(searchText) {
+        return searchText !== '' && !/\d/.test(searchText);
+    },
+
+    matchesFilter(row) {
+        const searchText = this.searchInput.val().trim().toLowerCase();
+        return this.isNameSearch(searchText) || row.text().toLowerCase().includes(searchText);
+    },
+
+    applyChange(type, data) {
+        if (this.isNameSearch(this.searchInput.val().trim())) {
+            // Whether a row matches depends on its names, so rerun the (small) search instead
+            this.handleSearch();
+            return;
+        }
+        if (this.reloading) {
+            this.pendingChanges.push([type, data]);
+            return;
+        }
+        const existingRow = this.studentTable.find(`tr[data-id="${data.id}"]`);
+        if (type === 'deleted') {
+            existingRow.remove();
+            return;
+        }
+        const row = this.createStudentRow(data);
+        row.toggle(this.matchesFilter(row));
+        if (existingRow.length) {
+            existingRow.replaceWith(row);
+        } else {
+            this.studentTable.append(row);
+        }
+    },
+
+    isFeedConnected() {
+        return this.changeFeed !== null && this.changeFeed.readyState === EventSource.OPEN;
+    },
+
     renderStudents(students) {
         this.studentTable.empty();
         students.forEach(student => {
@@ -58,7 +121,9 @@ const UI = {
                 await API.createStudent(studentData);
             }
             this.resetForm();
-            this.loadStudents();
+            if (!this.isFeedConnected()) {
+                this.loadStudents();
+            }
         } catch (error) {
             console.error('Error saving student:', error);
         }
@@ -87,7 +152,9 @@ const UI = {
         if (confirm('Are you sure you want to delete this student?')) {
             try {
                 await API.deleteStudent(id);
-                this.loadStudents();
+                if (!this.isFeedConnected()) {
+                    this.loadStudents();
+                }
             } catch (error) {
                 console.error('Error deleting student:', error);
             }
@@ -115,14 +182,9 @@ const UI = {
         this.cancelBtn.hide();
     },
 
-    handleSearch(event) {
-        const searchText = event.target.value.toLowerCase();
-        const rows = this.studentTable.find('tr');
-
-        rows.each(function() {
-            const text = $(this).text().toLowerCase();
-            $(this).toggle(text.includes(searchText));
-        });
+    handleSearch() {
+        clearTimeout(this.searchTimer);
+        this.searchTimer = setTimeout(() => this.loadStudents(), this.SEARCH_DELAY_MS);
     },
 
     formatDate(dateString) {
@@ -138,4 +200,4 @@ const UI = {
         this.form.prepend(errorDiv);
         setTimeout(() => errorDiv.remove(), 5000);
     }
-};
\ No newline at end of file
+};
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.university.feed;
+
+import com.university.model.Student;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class StudentChangeFeedTest {
+    /** More stalled clients than any shared task pool has threads */
+    private static final int STALLED_SUBSCRIBERS = 200;
+
+    private final StudentChangeFeed feed = new StudentChangeFeed(new SimpleMeterRegistry(), 16, 16, Duration.ofMinutes(1));
+    private final CountDownLatch unstall = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        unstall.countDown();
+        feed.shutdown();
+    }
+
+    @Test
+    void stalledSubscribersDoNotDelayOthers() throws InterruptedException {
+        for (int i = 0; i < STALLED_SUBSCRIBERS; i++) {
+            feed.subscribe(new StalledEmitter(unstall), null);
+        }
+        RecordingEmitter healthy = new RecordingEmitter();
+        feed.subscribe(healthy, null);
+        assertNotNull(healthy.sent.poll(5, TimeUnit.SECONDS), "reset event not delivered");
+
+        Student student = new Student();
+        student.setId(1L);
+        student.setFirstName("Иван");
+        student.setLastName("Петров");
+        student.setBirthDate(LocalDate.of(2001, 2, 3));
+        student.setGroupNumber("ИВТ-101");
+        feed.onStudentChanged(StudentChangedEvent.updated(student));
+
+        assertNotNull(healthy.sent.poll(5, TimeUnit.SECONDS), "change event not delivered");
+    }
+
+    /**
+     * A client that never reads: every send blocks until the test ends
+     */
+    private static class StalledEmitter extends SseEmitter {
+        private final CountDownLatch unstall;
+
+        StalledEmitter(CountDownLatch unstall) {
+            this.unstall = unstall;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            try {
+                unstall.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final BlockingQueue<SseEventBuilder> sent = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sent.add(builder);
+        }
+    }
+}